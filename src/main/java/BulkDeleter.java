@@ -0,0 +1,213 @@
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.filter.DependentColumnFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.filter.SkipFilter;
+import org.apache.hadoop.hbase.filter.ValueFilter;
+import org.apache.hadoop.hbase.filter.WhileMatchFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 按前缀、范围或过滤器批量删除
+ * 每个region并行扫描rowKey，匹配的key攒成批量Delete提交，
+ * 同时在途的批次数受maxInFlight限制，避免把RegionServer压垮
+ */
+public class BulkDeleter {
+
+    //进度回调，会被多个region线程调用，实现需要线程安全
+    //matchedRows为服务端过滤后返回的行数（不是扫描过的行数），deletedRows为已删除（dryRun时为已匹配）的行数
+    public interface ProgressListener {
+        void onProgress(long matchedRows, long deletedRows);
+    }
+
+    private final Connection connection;
+    private final ExecutorService executor;
+    private final ValueCodecs valueCodecs;
+
+    private int batchSize = 1000;
+    private int maxInFlight = 4;
+    private boolean dryRun = false;
+    private ProgressListener listener = null;
+
+    //valueCodecs用于拒绝按编码过的列值删除，可以为null
+    public BulkDeleter(Connection connection, ExecutorService executor, ValueCodecs valueCodecs) {
+        this.connection = connection;
+        this.executor = executor;
+        this.valueCodecs = valueCodecs;
+    }
+
+    //每个Delete批次的行数
+    public BulkDeleter setBatchSize(int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    //所有region同时在途的Delete批次上限
+    public BulkDeleter setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    //为true时只统计会被删除的行数，不做删除
+    public BulkDeleter setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+        return this;
+    }
+
+    public BulkDeleter setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    //删除rowKey以prefix开头的所有行，返回删除（或dryRun时匹配）的行数
+    //空前缀会匹配整张表，不允许；清空整表需要显式调用deleteByRange(table, null, null)
+    public long deleteByPrefix(TableName table, byte[] prefix) throws IOException {
+        if (prefix == null || prefix.length == 0)
+            throw new IllegalArgumentException("prefix must not be empty, use deleteByRange to purge the whole table");
+        return deleteByRange(table, prefix, stopRowForPrefix(prefix));
+    }
+
+    //删除[startRow, stopRow)范围内的所有行，null表示不限
+    public long deleteByRange(TableName table, byte[] startRow, byte[] stopRow) throws IOException {
+        FilterList filterList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
+        filterList.addFilter(new FirstKeyOnlyFilter());
+        filterList.addFilter(new KeyOnlyFilter());
+        return delete(table, startRow, stopRow, filterList);
+    }
+
+    //删除范围内满足过滤器的行
+    //过滤器可能需要比较列值，所以这里不能叠加KeyOnlyFilter，尽量用列投影相关的过滤器减少传输
+    //服务端比较的是存储的字节，比较编码过的列值的过滤器不允许使用
+    public long deleteByFilter(TableName table, byte[] startRow, byte[] stopRow, Filter filter) throws IOException {
+        checkFilter(table, filter);
+        return delete(table, startRow, stopRow, filter);
+    }
+
+    //编码过的列存的是压缩后的字节，例如NOT_EQUAL的条件会匹配所有压缩过的行，误删整张表
+    private void checkFilter(TableName table, Filter filter) throws IOException {
+        if (valueCodecs == null || filter == null) return;
+        if (filter instanceof FilterList) {
+            for (Filter f : ((FilterList) filter).getFilters()) {
+                checkFilter(table, f);
+            }
+        } else if (filter instanceof SkipFilter) {
+            checkFilter(table, ((SkipFilter) filter).getFilter());
+        } else if (filter instanceof WhileMatchFilter) {
+            checkFilter(table, ((WhileMatchFilter) filter).getFilter());
+        } else if (filter instanceof SingleColumnValueFilter) {
+            //包括SingleColumnValueExcludeFilter
+            SingleColumnValueFilter f = (SingleColumnValueFilter) filter;
+            checkColumn(table, f.getFamily(), f.getQualifier());
+        } else if (filter instanceof DependentColumnFilter) {
+            DependentColumnFilter f = (DependentColumnFilter) filter;
+            if (f.getComparator() != null) checkColumn(table, f.getFamily(), f.getQualifier());
+        } else if (filter instanceof ValueFilter && valueCodecs.hasEncodedColumns(table)) {
+            throw new IllegalArgumentException("value filter cannot match encoded columns of " + table);
+        }
+    }
+
+    private void checkColumn(TableName table, byte[] family, byte[] qualifier) throws IOException {
+        if (valueCodecs.isEncoded(table, family, qualifier))
+            throw new IllegalArgumentException("value filter cannot match encoded column " +
+                    Bytes.toStringBinary(family) + ":" + Bytes.toStringBinary(qualifier));
+    }
+
+    private long delete(TableName table, byte[] startRow, byte[] stopRow, Filter filter) throws IOException {
+        List<byte[][]> ranges = RegionRanges.split(connection, table, startRow, stopRow);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong matched = new AtomicLong();
+        AtomicLong deleted = new AtomicLong();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (byte[][] range : ranges) {
+            futures.add(executor.submit(() -> {
+                deleteRange(table, range, filter, inFlight, matched, deleted);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("bulk delete on " + table + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("bulk delete on " + table + " failed after " + deleted.get() + " rows",
+                    e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return deleted.get();
+    }
+
+    private void deleteRange(TableName table, byte[][] range, Filter filter, Semaphore inFlight,
+                             AtomicLong matched, AtomicLong deleted) throws IOException, InterruptedException {
+        Scan scan = new Scan();
+        scan.withStartRow(range[0]);
+        scan.withStopRow(range[1]);
+        scan.setFilter(filter);
+        scan.setCaching(batchSize);
+        scan.setCacheBlocks(false);
+
+        try (Table t = connection.getTable(table);
+             ResultScanner scanner = t.getScanner(scan)) {
+            List<Delete> batch = new ArrayList<>(batchSize);
+            for (Result result : scanner) {
+                matched.incrementAndGet();
+                batch.add(new Delete(result.getRow()));
+                if (batch.size() >= batchSize) {
+                    flush(t, batch, inFlight, matched, deleted);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) flush(t, batch, inFlight, matched, deleted);
+        }
+    }
+
+    private void flush(Table t, List<Delete> batch, Semaphore inFlight,
+                       AtomicLong matched, AtomicLong deleted) throws IOException, InterruptedException {
+        int size = batch.size();
+        if (!dryRun) {
+            inFlight.acquire();
+            try {
+                t.delete(batch);
+            } finally {
+                inFlight.release();
+            }
+        }
+        long total = deleted.addAndGet(size);
+        if (listener != null) listener.onProgress(matched.get(), total);
+    }
+
+    //前缀的结束行：最后一个不为0xff的字节加一并截断，全是0xff时扫到表尾
+    static byte[] stopRowForPrefix(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xff) {
+                byte[] stop = new byte[i + 1];
+                System.arraycopy(prefix, 0, stop, 0, i + 1);
+                stop[i]++;
+                return stop;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,135 @@
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 按时间戳检查点的增量扫描，用于下游缓存、索引同步
+ * 每个region并行scan，setTimeRange只返回检查点之后写入的cell，代价与变化量成正比而不是表大小。
+ * 时间戳由各RegionServer的时钟生成，为了不漏掉时钟偏慢的写入，每次从 检查点 - overlap 开始扫描，
+ * 重叠窗口内的变化可能重复投递，下游需要按rowKey+时间戳幂等处理。
+ * 只按cell时间戳判断，显式指定了较早时间戳的写入（例如helper的put(..., ts, ...)、TimeSeriesStore补写历史点）
+ * 早于检查点 - overlap时永远不会被扫到，这类数据需要另外全量同步。
+ * 一行的变化可能分成多个Result返回，Result.mayHaveMoreCellsInRow()为true表示这一行还有后续。
+ * includeDeletes为true时使用raw scan，删除标记也会返回，下游可以据此删除
+ */
+public class ChangeScanner {
+
+    //检查点，toString/valueOf用于持久化
+    public static class Checkpoint {
+        public static final Checkpoint BEGINNING = new Checkpoint(0, 0, 0);
+
+        private final long timestamp;
+        private final long rows;
+        private final long cells;
+
+        Checkpoint(long timestamp, long rows, long cells) {
+            this.timestamp = timestamp;
+            this.rows = rows;
+            this.cells = cells;
+        }
+
+        public static Checkpoint valueOf(String s) {
+            return new Checkpoint(Long.parseLong(s.trim()), 0, 0);
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        //产生这个检查点的扫描返回的行数（分块计算）
+        public long getRows() {
+            return rows;
+        }
+
+        //产生这个检查点的扫描返回的cell数
+        public long getCells() {
+            return cells;
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(timestamp);
+        }
+    }
+
+    private final Connection connection;
+    private final ExecutorService executor;
+    private final ValueCodecs valueCodecs;
+    private final long overlapMillis;
+
+    //valueCodecs用于解码列值，可以为null；overlapMillis为容忍的时钟偏差
+    public ChangeScanner(Connection connection, ExecutorService executor, ValueCodecs valueCodecs,
+                         long overlapMillis) {
+        if (overlapMillis < 0) throw new IllegalArgumentException("overlapMillis must not be negative: " + overlapMillis);
+        this.connection = connection;
+        this.executor = executor;
+        this.valueCodecs = valueCodecs;
+        this.overlapMillis = overlapMillis;
+    }
+
+    //扫描since之后的变化，consumer会被多个region线程同时调用，实现需要线程安全
+    //返回新的检查点，所有region都成功后才返回，失败时应继续使用旧检查点重试
+    public Checkpoint scan(TableName table, Checkpoint since, byte[][] families, boolean includeDeletes,
+                           Consumer<Result> consumer) throws IOException {
+        //新检查点取扫描开始时的时间，之后写入的cell由下一次扫描负责
+        long now = System.currentTimeMillis();
+        long from = Math.max(0, since.getTimestamp() - overlapMillis);
+
+        AtomicLong rows = new AtomicLong();
+        AtomicLong cells = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (byte[][] range : RegionRanges.split(connection, table, null, null)) {
+            Scan scan = new Scan();
+            scan.withStartRow(range[0]);
+            scan.withStopRow(range[1]);
+            //上界不限，时钟偏快的RegionServer写入的未来时间戳也能取到
+            scan.setTimeRange(from, Long.MAX_VALUE);
+            scan.readAllVersions();
+            scan.setCacheBlocks(false);
+            //一行的变化可能很多，分块返回
+            scan.setAllowPartialResults(true);
+            if (families != null) {
+                for (byte[] family : families) scan.addFamily(family);
+            }
+            if (includeDeletes) scan.setRaw(true);
+            futures.add(executor.submit(() -> {
+                try (Table t = connection.getTable(table);
+                     ResultScanner scanner = t.getScanner(scan)) {
+                    for (Result result : scanner) {
+                        rows.incrementAndGet();
+                        cells.addAndGet(result.size());
+                        consumer.accept(valueCodecs == null ? result : valueCodecs.decode(table, result));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("change scan on " + table + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("change scan on " + table + " failed, keep checkpoint " + since, e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return new Checkpoint(Math.max(now, since.getTimestamp()), rows.get(), cells.get());
+    }
+}
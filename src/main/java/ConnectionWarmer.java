@@ -0,0 +1,170 @@
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 连接预热
+ * 启动时对配置的表通过RegionLocator预取所有region位置（写入客户端的位置缓存），
+ * 再并行向每个RegionServer发一次exists请求建立RPC连接，完成后才标记就绪，
+ * 避免发布后第一批请求集中查hbase:meta和建连。
+ * 可选的后台刷新会定期比较region分布，region迁移或分裂后重新加载位置并预建新连接
+ */
+public class ConnectionWarmer implements Closeable {
+
+    private final Connection connection;
+    private final ExecutorService executor;
+    private final Set<TableName> tables = ConcurrentHashMap.newKeySet();
+    //每张表上一次看到的region分布：region名 -> 所在RegionServer
+    private final Map<TableName, Map<String, ServerName>> layouts = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+    private volatile long warmUpMillis = -1;
+    private final AtomicLong refreshedRegions = new AtomicLong();
+    private ScheduledExecutorService refresher = null;
+
+    public ConnectionWarmer(Connection connection, ExecutorService executor) {
+        this.connection = connection;
+        this.executor = executor;
+    }
+
+    //预热指定的表，返回耗时毫秒，任一表失败则抛出异常且不标记就绪
+    public long warmUp(Collection<TableName> tableNames) throws IOException {
+        long start = System.nanoTime();
+        Set<ServerName> servers = new HashSet<>();
+        Map<ServerName, HRegionLocation> probes = new HashMap<>();
+        Map<ServerName, TableName> probeTables = new HashMap<>();
+
+        for (TableName table : tableNames) {
+            List<HRegionLocation> locations = locate(table);
+            for (HRegionLocation location : locations) {
+                if (servers.add(location.getServerName())) {
+                    probes.put(location.getServerName(), location);
+                    probeTables.put(location.getServerName(), table);
+                }
+            }
+            tables.add(table);
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (Map.Entry<ServerName, HRegionLocation> entry : probes.entrySet()) {
+            TableName table = probeTables.get(entry.getKey());
+            HRegionLocation location = entry.getValue();
+            futures.add(executor.submit(() -> {
+                probe(table, location);
+                return null;
+            }));
+        }
+        await(futures, "warm up");
+
+        warmUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        ready = true;
+        return warmUpMillis;
+    }
+
+    //启动后台刷新，每intervalSeconds秒检查一次region分布
+    public synchronized void startRefresh(long intervalSeconds) {
+        if (refresher != null || intervalSeconds <= 0) return;
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hbase-helper-location-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            for (TableName table : tables) {
+                try {
+                    refresh(table);
+                } catch (Exception e) {
+                    System.err.println("Error: refresh region locations of " + table + " failed: " + e.getMessage());
+                }
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    //重新读取hbase:meta，有变化的region强制刷新缓存，并向新出现的RegionServer预建连接
+    void refresh(TableName table) throws IOException {
+        Map<String, ServerName> previous = layouts.getOrDefault(table, Collections.emptyMap());
+        Set<ServerName> knownServers = new HashSet<>(previous.values());
+        Map<String, ServerName> layout = new HashMap<>();
+        try (RegionLocator locator = connection.getRegionLocator(table)) {
+            for (HRegionLocation location : locator.getAllRegionLocations()) {
+                String region = location.getRegion().getRegionNameAsString();
+                layout.put(region, location.getServerName());
+                if (location.getServerName().equals(previous.get(region))) continue;
+                locator.getRegionLocation(location.getRegion().getStartKey(), true);
+                refreshedRegions.incrementAndGet();
+                if (knownServers.add(location.getServerName())) probe(table, location);
+            }
+        }
+        layouts.put(table, layout);
+    }
+
+    //预取表的所有region位置并记录分布
+    private List<HRegionLocation> locate(TableName table) throws IOException {
+        try (RegionLocator locator = connection.getRegionLocator(table)) {
+            List<HRegionLocation> locations = locator.getAllRegionLocations();
+            Map<String, ServerName> layout = new HashMap<>();
+            for (HRegionLocation location : locations) {
+                //逐个region确认位置进入缓存，后续请求不再查meta
+                locator.getRegionLocation(location.getRegion().getStartKey());
+                layout.put(location.getRegion().getRegionNameAsString(), location.getServerName());
+            }
+            layouts.put(table, layout);
+            return locations;
+        }
+    }
+
+    //对region起始行发一次exists请求，只为建立到该RegionServer的连接
+    private void probe(TableName table, HRegionLocation location) throws IOException {
+        byte[] row = location.getRegion().getStartKey();
+        if (row.length == 0) row = new byte[]{0};
+        try (Table t = connection.getTable(table)) {
+            t.exists(new Get(row));
+        }
+    }
+
+    private static void await(List<Future<?>> futures, String action) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(action + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException(action + " failed", e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    //预热耗时，未预热时为-1
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    //后台刷新过位置的region数
+    public long getRefreshedRegions() {
+        return refreshedRegions.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refresher != null) refresher.shutdownNow();
+    }
+}
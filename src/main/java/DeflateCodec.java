@@ -0,0 +1,151 @@
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 基于JDK Deflater的列值压缩（LZ77 + 霍夫曼），默认BEST_SPEED，
+ * 可带预置字典，用于大量相似的小值（例如结构相同的JSON）
+ * 头部：MAGIC(1) + id(1) + [字典id(4)] + 原始长度(4)
+ */
+public class DeflateCodec implements ValueCodec {
+
+    public static final byte FAST_ID = 1;
+    public static final byte DICTIONARY_ID = 2;
+
+    private static final int MAX_RATIO = 1032;
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(
+            () -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final byte[] dictionary;
+    private final int dictionaryId;
+    private final int headerLength;
+
+    //不带字典的快速压缩
+    public DeflateCodec() {
+        this(null, 0);
+    }
+
+    //带字典压缩，dictionaryId用于读取时找回同一份字典
+    public DeflateCodec(byte[] dictionary, int dictionaryId) {
+        this.dictionary = dictionary;
+        this.dictionaryId = dictionaryId;
+        this.headerLength = dictionary == null ? 6 : 10;
+    }
+
+    //从样本训练字典：统计样本中出现次数最多的片段拼成字典，最常见的放在字典末尾（距离最近，编码最短）
+    public static DeflateCodec train(List<byte[]> samples, int dictionarySize) {
+        final int gram = 8;
+        Map<String, Integer> counts = new HashMap<>();
+        for (byte[] sample : samples) {
+            //同一个样本里重复的片段只算一次，偏向跨样本共有的内容
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i + gram <= sample.length; i++) {
+                String key = new String(sample, i, gram, StandardCharsets.ISO_8859_1);
+                if (seen.add(key)) counts.merge(key, 1, Integer::sum);
+            }
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.removeIf(e -> e.getValue() < 2);
+        entries.sort((a, b) -> b.getValue() - a.getValue());
+
+        StringBuilder dict = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : entries) {
+            if (dict.length() + gram > dictionarySize) break;
+            if (dict.indexOf(entry.getKey()) < 0) dict.insert(0, entry.getKey());
+        }
+        byte[] dictionary = dict.toString().getBytes(StandardCharsets.ISO_8859_1);
+        CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        return new DeflateCodec(dictionary, (int) crc.getValue());
+    }
+
+    //字典的持久化格式：字典id(4) + 字典字节，只用于带字典的编码
+    public byte[] toBytes() {
+        if (dictionary == null) throw new IllegalStateException(name() + " has no dictionary");
+        return Bytes.add(Bytes.toBytes(dictionaryId), dictionary);
+    }
+
+    public static DeflateCodec fromBytes(byte[] bytes) throws IOException {
+        if (bytes.length <= Bytes.SIZEOF_INT) throw new IOException("corrupt value dictionary: " + bytes.length + " bytes");
+        return new DeflateCodec(Arrays.copyOfRange(bytes, Bytes.SIZEOF_INT, bytes.length), Bytes.toInt(bytes));
+    }
+
+    @Override
+    public byte id() {
+        return dictionary == null ? FAST_ID : DICTIONARY_ID;
+    }
+
+    @Override
+    public String name() {
+        return dictionary == null ? "deflate-fast" : "deflate-dict-" + Integer.toHexString(dictionaryId);
+    }
+
+    public int getDictionaryId() {
+        return dictionaryId;
+    }
+
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public byte[] encode(byte[] value) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        if (dictionary != null) deflater.setDictionary(dictionary);
+        deflater.setInput(value);
+        deflater.finish();
+
+        //压缩结果超过原值长度就放弃
+        byte[] out = new byte[headerLength + value.length];
+        int n = deflater.deflate(out, headerLength, value.length);
+        if (!deflater.finished()) return null;
+
+        out[0] = MAGIC;
+        out[1] = id();
+        int pos = 2;
+        if (dictionary != null) pos = Bytes.putInt(out, pos, dictionaryId);
+        Bytes.putInt(out, pos, value.length);
+
+        byte[] result = new byte[headerLength + n];
+        System.arraycopy(out, 0, result, 0, result.length);
+        return result;
+    }
+
+    @Override
+    public byte[] decode(byte[] data, int offset, int length) throws IOException {
+        if (length < headerLength) throw new IOException("corrupt " + name() + " value: truncated header");
+        int rawLength = Bytes.toInt(data, offset + headerLength - 4);
+        //deflate的压缩比不超过1032:1，超出的长度说明头部损坏或不是编码过的值
+        if (rawLength < 0 || rawLength > (long) (length - headerLength) * MAX_RATIO)
+            throw new IOException("corrupt " + name() + " value: invalid raw length " + rawLength);
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        if (dictionary != null) inflater.setDictionary(dictionary);
+        inflater.setInput(data, offset + headerLength, length - headerLength);
+        byte[] raw = new byte[rawLength];
+        try {
+            int n = 0;
+            while (n < rawLength) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != rawLength) throw new IOException("corrupt " + name() + " value: expected " +
+                    rawLength + " bytes but got " + n);
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt " + name() + " value", e);
+        }
+        return raw;
+    }
+}
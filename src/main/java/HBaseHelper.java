@@ -1,6 +1,7 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.NamespaceDescriptor;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
@@ -9,10 +10,18 @@ import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * @Author: xu.dm
@@ -24,23 +33,76 @@ public class HBaseHelper implements Closeable {
     private Configuration configuration = null;
     private Connection connection = null;
     private Admin admin = null;
+    //按region并行扫描使用的线程池，第一次使用时创建
+    private ExecutorService executor = null;
+    private HedgedReader hedgedReader = null;
+    private ConnectionWarmer warmer = null;
+    //列值编码配置，所有读写方法统一经过这里编解码
+    private final ValueCodecs valueCodecs;
 
     private HBaseHelper(Configuration configuration) throws IOException {
         this.configuration = configuration;
         this.connection = ConnectionFactory.createConnection(this.configuration);
         admin = this.connection.getAdmin();
+        hedgedReader = new HedgedReader(connection);
+        valueCodecs = newValueCodecs();
+    }
+
+    private HBaseHelper(Connection connection) throws IOException {
+        this.configuration = connection.getConfiguration();
+        this.connection = connection;
+        admin = this.connection.getAdmin();
+        hedgedReader = new HedgedReader(connection);
+        valueCodecs = newValueCodecs();
+    }
+
+    //编码配置从列族属性加载，hbase.helper.codec.refresh.seconds为重新加载的间隔，默认60，0表示不重新加载
+    private ValueCodecs newValueCodecs() {
+        return new ValueCodecs(admin::getDescriptor,
+                configuration.getLong("hbase.helper.codec.refresh.seconds", 60) * 1000);
     }
 
     public static HBaseHelper getHBaseHelper(Configuration configuration) throws IOException {
-        return new HBaseHelper(configuration);
+        return warmUpConfigured(new HBaseHelper(configuration));
+    }
+
+    //使用已有的Connection，例如进程内替身InMemoryConnection，close时会一并关闭这个Connection
+    public static HBaseHelper getHBaseHelper(Connection connection) throws IOException {
+        return warmUpConfigured(new HBaseHelper(connection));
+    }
+
+    //配置了hbase.helper.warmup.tables（逗号分隔）时，预热完成才返回helper
+    //hbase.helper.warmup.refresh.seconds为后台刷新region位置的间隔，默认60，0表示不刷新
+    private static HBaseHelper warmUpConfigured(HBaseHelper helper) throws IOException {
+        String[] tables = helper.configuration.getTrimmedStrings("hbase.helper.warmup.tables");
+        if (tables.length == 0) return helper;
+        try {
+            long millis = helper.warmUp(tables);
+            System.out.println("warm up " + Arrays.toString(tables) + " took " + millis + " ms");
+            helper.getWarmer().startRefresh(helper.configuration.getLong("hbase.helper.warmup.refresh.seconds", 60));
+        } catch (IOException e) {
+            helper.close();
+            throw e;
+        }
+        return helper;
     }
 
     @Override
     public void close() throws IOException {
+        if (warmer != null) warmer.close();
+        if (executor != null) executor.shutdownNow();
         admin.close();
         connection.close();
     }
 
+    //并行度由hbase.helper.parallelism配置，默认8
+    synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(configuration.getInt("hbase.helper.parallelism", 8));
+        }
+        return executor;
+    }
+
     public Connection getConnection() {
         return connection;
     }
@@ -49,6 +111,50 @@ public class HBaseHelper implements Closeable {
         return configuration;
     }
 
+    //预热：预取表的所有region位置并向各RegionServer建立连接，返回耗时毫秒
+    public long warmUp(String... tables) throws IOException {
+        List<TableName> tableNames = new ArrayList<>();
+        for (String table : tables) {
+            tableNames.add(TableName.valueOf(table));
+        }
+        return getWarmer().warmUp(tableNames);
+    }
+
+    //预热状态、耗时和后台刷新统计
+    public synchronized ConnectionWarmer getWarmer() {
+        if (warmer == null) warmer = new ConnectionWarmer(connection, getExecutor());
+        return warmer;
+    }
+
+    //对列族或单个列开启列值编码，qualifier为null表示整个列族，codec为null表示关闭
+    //例如ValueCodecs.fast()，或者用DeflateCodec.train从样本训练的字典编码
+    //配置和字典保存在列族属性里（会修改表描述符），其他helper第一次读写这张表时加载
+    public void setValueCodec(String tableNameString, String family, String qualifier, ValueCodec codec)
+            throws IOException {
+        TableName table = TableName.valueOf(tableNameString);
+        TableDescriptor descriptor = admin.getDescriptor(table);
+        TableDescriptor modified = ValueCodecs.withCodec(descriptor, Bytes.toBytes(family), toBytes(qualifier), codec);
+        if (modified != descriptor) admin.modifyTable(modified);
+        valueCodecs.reload(table);
+    }
+
+    //把字典另存一份到文件，例如在别的表上复用；字典已经随setValueCodec保存在列族属性里
+    public void saveValueDictionary(DeflateCodec codec, String path) throws IOException {
+        Files.write(Paths.get(path), codec.toBytes());
+    }
+
+    //加载saveValueDictionary保存的字典并登记，返回的编码可以再用setValueCodec配置到列族
+    public DeflateCodec loadValueDictionary(String path) throws IOException {
+        DeflateCodec codec = DeflateCodec.fromBytes(Files.readAllBytes(Paths.get(path)));
+        valueCodecs.registerDictionary(codec);
+        return codec;
+    }
+
+    //编码配置和节省字节数统计
+    public ValueCodecs getValueCodecs() {
+        return valueCodecs;
+    }
+
     public void createNamespace(String namespace) {
         try {
             NamespaceDescriptor nd = NamespaceDescriptor.create(namespace).build();
@@ -115,6 +221,26 @@ public class HBaseHelper implements Closeable {
     public void createTable(TableName table, int maxVersions, byte[][] splitKeys,
                             String... colfams)
             throws IOException {
+        createTable(table, maxVersions, splitKeys, (Map<String, TableProfile>) null, colfams);
+    }
+
+    //所有列族使用同一个性能模板建表
+    public void createTable(TableName table, int maxVersions, byte[][] splitKeys,
+                            TableProfile profile, String... colfams)
+            throws IOException {
+        Map<String, TableProfile> profiles = new HashMap<>();
+        if (profile != null) {
+            for (String cf : colfams) {
+                profiles.put(cf, profile);
+            }
+        }
+        createTable(table, maxVersions, splitKeys, profiles, colfams);
+    }
+
+    //按列族指定性能模板建表，profiles里没有的列族保持默认设置
+    public void createTable(TableName table, int maxVersions, byte[][] splitKeys,
+                            Map<String, TableProfile> profiles, String... colfams)
+            throws IOException {
         //表描述器构造器
         TableDescriptorBuilder tableDescriptorBuilder = TableDescriptorBuilder.newBuilder(table);
 
@@ -128,6 +254,9 @@ public class HBaseHelper implements Closeable {
         for (String cf : colfams) {
             cfDescBuilder = ColumnFamilyDescriptorBuilder.newBuilder(Bytes.toBytes(cf));
             cfDescBuilder.setMaxVersions(maxVersions);
+            if (profiles != null && profiles.get(cf) != null) {
+                profiles.get(cf).apply(cfDescBuilder);
+            }
             cfDesc = cfDescBuilder.build();
             tableDescriptorBuilder.setColumnFamily(cfDesc);
         }
@@ -141,6 +270,45 @@ public class HBaseHelper implements Closeable {
         }
     }
 
+    public Map<String, List<String>> applyProfile(String table, TableProfile profile, String... colfams)
+            throws IOException {
+        Map<String, TableProfile> profiles = new HashMap<>();
+        for (String cf : colfams) {
+            profiles.put(cf, profile);
+        }
+        return applyProfiles(TableName.valueOf(table), profiles, false);
+    }
+
+    //已有表套用性能模板：逐个列族比较，只修改有差异的列族，不存在的列族会新增
+    //所有变更合并成一个表描述，只调用一次modifyTable，region只重新打开一次
+    //dryRun为true时只返回差异不做修改，返回值为列族名和差异说明
+    public Map<String, List<String>> applyProfiles(TableName table, Map<String, TableProfile> profiles,
+                                                   boolean dryRun) throws IOException {
+        TableDescriptor tableDescriptor = admin.getDescriptor(table);
+        TableDescriptorBuilder builder = TableDescriptorBuilder.newBuilder(tableDescriptor);
+        Map<String, List<String>> changes = new HashMap<>();
+        for (Map.Entry<String, TableProfile> entry : profiles.entrySet()) {
+            byte[] family = Bytes.toBytes(entry.getKey());
+            ColumnFamilyDescriptor current = tableDescriptor.getColumnFamily(family);
+            if (current == null) {
+                changes.put(entry.getKey(), Collections.singletonList("ADD FAMILY " + entry.getValue()));
+                builder.setColumnFamily(entry.getValue()
+                        .apply(ColumnFamilyDescriptorBuilder.newBuilder(family)).build());
+                continue;
+            }
+            List<String> diffs = entry.getValue().diff(current);
+            if (diffs.isEmpty()) continue;
+            changes.put(entry.getKey(), diffs);
+            //在原列族描述的基础上修改，保留版本数等其他属性
+            builder.modifyColumnFamily(entry.getValue()
+                    .apply(ColumnFamilyDescriptorBuilder.newBuilder(current)).build());
+        }
+        if (!dryRun && !changes.isEmpty()) {
+            admin.modifyTable(builder.build());
+        }
+        return changes;
+    }
+
     public void disableTable(String table) throws IOException {
         disableTable(TableName.valueOf(table));
     }
@@ -171,7 +339,7 @@ public class HBaseHelper implements Closeable {
         Table tbl = connection.getTable(table);
         Put put = new Put(Bytes.toBytes(row));
         put.addColumn(Bytes.toBytes(fam), Bytes.toBytes(qual), Bytes.toBytes(val));
-        tbl.put(put);
+        tbl.put(valueCodecs.encode(table, put));
         tbl.close();
     }
 
@@ -187,7 +355,7 @@ public class HBaseHelper implements Closeable {
         Put put = new Put(Bytes.toBytes(row));
         put.addColumn(Bytes.toBytes(fam), Bytes.toBytes(qual), ts,
                 Bytes.toBytes(val));
-        tbl.put(put);
+        tbl.put(valueCodecs.encode(table, put));
         tbl.close();
     }
 
@@ -196,7 +364,7 @@ public class HBaseHelper implements Closeable {
         TableName tableName = TableName.valueOf(tableNameString);
         Table table = connection.getTable(tableName);
         if (put != null && put.size() > 0) {
-            table.put(put);
+            table.put(valueCodecs.encode(tableName, put));
         }
         table.close();
     }
@@ -224,7 +392,7 @@ public class HBaseHelper implements Closeable {
                     v++;
                 }
             }
-            tbl.put(put);
+            tbl.put(valueCodecs.encode(table, put));
         }
         tbl.close();
     }
@@ -253,7 +421,7 @@ public class HBaseHelper implements Closeable {
         }
         Result[] results = tbl.get(gets);
         for (Result result : results) {
-            for (Cell cell : result.rawCells()) {
+            for (Cell cell : valueCodecs.decode(table, result).rawCells()) {
                 System.out.println("Cell: " + cell +
                         ", Value: " + Bytes.toString(cell.getValueArray(),
                         cell.getValueOffset(), cell.getValueLength()));
@@ -273,7 +441,7 @@ public class HBaseHelper implements Closeable {
                 ResultScanner scanner = t.getScanner(new Scan());
         ) {
             for (Result result : scanner) {
-                dumpResult(result);
+                dumpResult(valueCodecs.decode(table, result));
             }
         }
     }
@@ -287,6 +455,7 @@ public class HBaseHelper implements Closeable {
         }
     }
 
+    //list为getRowByKey等方法返回的已解码的cell
     public void dumpCells(String key, List<Cell> list) {
         for (Cell cell : list) {
             String columnFamily = Bytes.toString(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
@@ -311,7 +480,7 @@ public class HBaseHelper implements Closeable {
                 puts.add(put);
             }
         }
-        table.put(puts);
+        table.put(valueCodecs.encode(table.getName(), puts));
         table.close();
     }
 
@@ -319,7 +488,7 @@ public class HBaseHelper implements Closeable {
     public void bulkInsert2(String tableNameString, List<Put> puts) throws IOException {
         Table table = connection.getTable(TableName.valueOf(tableNameString));
         if (puts != null && puts.size() > 0) {
-            table.put(puts);
+            table.put(valueCodecs.encode(table.getName(), puts));
         }
         table.close();
     }
@@ -355,54 +524,171 @@ public class HBaseHelper implements Closeable {
         table.close();
     }
 
+    //批量删除器，可设置批次大小、在途批次上限、dryRun和进度回调
+    public BulkDeleter newBulkDeleter() {
+        return new BulkDeleter(connection, getExecutor(), valueCodecs);
+    }
+
+    //按rowKey前缀批量删除，按region并行，返回删除行数，prefix不能为空
+    public long deleteByPrefix(String tableNameString, String prefix) throws IOException {
+        return newBulkDeleter().deleteByPrefix(TableName.valueOf(tableNameString), toBytes(prefix));
+    }
+
+    //按rowKey范围[startRow, stopRow)批量删除，null表示不限，两端都为null时清空整表
+    public long deleteByRange(String tableNameString, String startRow, String stopRow) throws IOException {
+        return newBulkDeleter().deleteByRange(TableName.valueOf(tableNameString), toBytes(startRow), toBytes(stopRow));
+    }
+
+    //删除满足过滤器的行，过滤在服务端按存储的字节比较，不能按开启了列值编码的列值过滤
+    public long deleteByFilter(String tableNameString, Filter filter) throws IOException {
+        return newBulkDeleter().deleteByFilter(TableName.valueOf(tableNameString), null, null, filter);
+    }
+
+    //开启表的timeline对冲读，表需要有region副本
+    //对冲延迟由创建连接时的hbase.client.primaryCallTimeout.get和.multiget决定（微秒），
+    //需要对冲次数统计时同时设置hbase.client.metrics.enable=true
+    public void enableTimelineReads(String tableNameString) {
+        hedgedReader.enable(TableName.valueOf(tableNameString));
+    }
+
+    public void disableTimelineReads(String tableNameString) {
+        hedgedReader.disable(TableName.valueOf(tableNameString));
+    }
+
+    //timeline读次数、过期读次数等统计
+    public HedgedReader getHedgedReader() {
+        return hedgedReader;
+    }
+
+    //按读模式获取整行，返回Result以便通过isStale()判断是否来自副本
+    public Result getRow(String tableNameString, String rowKey, HedgedReader.ReadMode mode) throws IOException {
+        TableName tableName = TableName.valueOf(tableNameString);
+        return valueCodecs.decode(tableName, hedgedReader.get(tableName,
+                new Get(Bytes.toBytes(rowKey)), mode));
+    }
 
     //根据rowkey，获取所有列族和列数据
     public List<Cell> getRowByKey(String tableNameString, String rowKey) throws IOException {
-        Table table = connection.getTable(TableName.valueOf(tableNameString));
+        return getRowByKey(tableNameString, rowKey, HedgedReader.ReadMode.DEFAULT);
+    }
 
+    public List<Cell> getRowByKey(String tableNameString, String rowKey, HedgedReader.ReadMode mode) throws IOException {
         Get get = new Get(Bytes.toBytes(rowKey));
 
-        Result result = table.get(get);
+        TableName tableName = TableName.valueOf(tableNameString);
+        Result result = hedgedReader.get(tableName, get, mode);
 
 //        Cell[] cells = result.rawCells();
-        List<Cell> list = result.listCells();
-        table.close();
+        List<Cell> list = valueCodecs.decode(tableName, result.listCells());
         return list;
     }
 
     //根据rowKey，family,qualifier获取列值
     public List<Cell> getRowByKeyAndColumn(String tableNameString, String rowKey, String cf, String clName) throws IOException {
-        Table table = connection.getTable(TableName.valueOf(tableNameString));
+        return getRowByKeyAndColumn(tableNameString, rowKey, cf, clName, HedgedReader.ReadMode.DEFAULT);
+    }
+
+    public List<Cell> getRowByKeyAndColumn(String tableNameString, String rowKey, String cf, String clName,
+                                           HedgedReader.ReadMode mode) throws IOException {
         Get get = new Get(Bytes.toBytes(rowKey));
         get.addColumn(Bytes.toBytes(cf), Bytes.toBytes(clName));
 
-        Result result = table.get(get);
-        List<Cell> list = result.listCells();
-        table.close();
+        TableName tableName = TableName.valueOf(tableNameString);
+        Result result = hedgedReader.get(tableName, get, mode);
+        List<Cell> list = valueCodecs.decode(tableName, result.listCells());
         return list;
     }
 
     //根据rowkey，获取所有列族和列数据
     public Map<String, List<Cell>> getRowByKeys(String tableNameString, String... rowKeys) throws IOException {
-        Table table = connection.getTable(TableName.valueOf(tableNameString));
+        return getRowByKeys(tableNameString, HedgedReader.ReadMode.DEFAULT, rowKeys);
+    }
 
+    public Map<String, List<Cell>> getRowByKeys(String tableNameString, HedgedReader.ReadMode mode,
+                                                String... rowKeys) throws IOException {
         List<Get> gets = new ArrayList<>();
         for (String rowKey : rowKeys) {
             Get get = new Get(Bytes.toBytes(rowKey));
             gets.add(get);
         }
 
-        Result[] results = table.get(gets);
+        TableName tableName = TableName.valueOf(tableNameString);
+        Result[] results = hedgedReader.get(tableName, gets, mode);
 
         Map<String, List<Cell>> map = new HashMap<>();
         for (Result res : results) {
-            map.put(Bytes.toString(res.getRow()), res.listCells());
+            map.put(Bytes.toString(res.getRow()), valueCodecs.decode(tableName, res.listCells()));
         }
 
-        table.close();
         return map;
     }
 
+    //流式读取超宽行，按分块逐个返回cell，内存占用与行宽无关，用完需要close
+    public WideRowScanner openWideRow(String tableNameString, String rowKey) throws IOException {
+        return openWideRow(tableNameString, rowKey, null, null, null, 1, 1000);
+    }
+
+    //family为null读所有列族，minCol、maxCol为列名范围（包含），null表示不限
+    public WideRowScanner openWideRow(String tableNameString, String rowKey, String family,
+                                      String minCol, String maxCol, int maxVersions, int chunkSize)
+            throws IOException {
+        return WideRowScanner.open(connection, TableName.valueOf(tableNameString), Bytes.toBytes(rowKey),
+                toBytes(family), toBytes(minCol), toBytes(maxCol), maxVersions, chunkSize,
+                configuration.getLong("hbase.helper.widerow.chunk.bytes", 2 * 1024 * 1024), valueCodecs);
+    }
+
+    //逐块打印超宽行的所有版本
+    public void dumpWideRow(String tableNameString, String rowKey) throws IOException {
+        try (WideRowScanner scanner = openWideRow(tableNameString, rowKey, null, null, null,
+                Integer.MAX_VALUE, 1000)) {
+            while (scanner.hasNext()) {
+                Cell cell = scanner.next();
+                System.out.println("Cell: " + cell +
+                        ", Value: " + Bytes.toString(cell.getValueArray(),
+                        cell.getValueOffset(), cell.getValueLength()));
+            }
+        }
+    }
+
+    //创建时序表，列族使用TIME_SERIES性能模板，每个点只保留一个版本，数据不过期
+    public void createTimeSeriesTable(String tableNameString, String family) throws IOException {
+        createTimeSeriesTable(tableNameString, family, HConstants.FOREVER);
+    }
+
+    //retentionSeconds为列族TTL，按点的时间戳过期，早于保留期的点TimeSeriesStore.append会拒绝写入
+    public void createTimeSeriesTable(String tableNameString, String family, int retentionSeconds) throws IOException {
+        createTable(TableName.valueOf(tableNameString), 1, null, TableProfile.TIME_SERIES.withTtl(retentionSeconds), family);
+    }
+
+    //时序读写，bucketMillis为每行覆盖的时间窗口，例如一小时3600000
+    public TimeSeriesStore getTimeSeriesStore(String tableNameString, String family, long bucketMillis) {
+        return new TimeSeriesStore(connection, getExecutor(), TableName.valueOf(tableNameString),
+                Bytes.toBytes(family), bucketMillis);
+    }
+
+    //增量扫描since之后写入的变化，families为空表示所有列族，consumer需要线程安全且幂等
+    //重叠窗口取hbase.helper.changes.overlap.ms（默认60秒），返回的新检查点由调用方持久化
+    public ChangeScanner.Checkpoint scanChanges(String tableNameString, ChangeScanner.Checkpoint since,
+                                                boolean includeDeletes, Consumer<Result> consumer,
+                                                String... families) throws IOException {
+        return scanChanges(tableNameString, since,
+                configuration.getLong("hbase.helper.changes.overlap.ms", 60000L), includeDeletes, consumer, families);
+    }
+
+    public ChangeScanner.Checkpoint scanChanges(String tableNameString, ChangeScanner.Checkpoint since,
+                                                long overlapMillis, boolean includeDeletes,
+                                                Consumer<Result> consumer, String... families) throws IOException {
+        byte[][] familyBytes = null;
+        if (families != null && families.length > 0) {
+            familyBytes = new byte[families.length][];
+            for (int i = 0; i < families.length; i++) {
+                familyBytes[i] = Bytes.toBytes(families[i]);
+            }
+        }
+        return new ChangeScanner(connection, getExecutor(), valueCodecs, overlapMillis)
+                .scan(TableName.valueOf(tableNameString), since, familyBytes, includeDeletes, consumer);
+    }
+
     private Map<String, List<Cell>> formatToMap(String tableNameString,Scan scan) throws IOException{
         //确保table和scanner被释放
         try (Table table = connection.getTable(TableName.valueOf(tableNameString));
@@ -410,7 +696,7 @@ public class HBaseHelper implements Closeable {
         ) {
             Map<String, List<Cell>> map = new HashMap<>();
             for (Result result : scanner) {
-                map.put(Bytes.toString(result.getRow()), result.listCells());
+                map.put(Bytes.toString(result.getRow()), valueCodecs.decode(table.getName(), result.listCells()));
             }
             return map;
         }
@@ -434,8 +720,11 @@ public class HBaseHelper implements Closeable {
 
     //根据列族，列名，列值（支持正则）查找数据
     //返回值：如果查询到值，会返回所有匹配的rowKey下的各列族、列名的所有数据（即使查询的时候这些列族和列名并不匹配）
+    //过滤在服务端按存储的字节比较，开启了列值编码的列不能使用
     public Map<String, List<Cell>> filterByValueRegex(String tableNameString, String family, String colName,
                                                       String value, CompareOperator operator) throws IOException {
+        if (valueCodecs.isEncoded(TableName.valueOf(tableNameString), Bytes.toBytes(family), Bytes.toBytes(colName)))
+            throw new IllegalArgumentException("value filter cannot match encoded column " + family + ":" + colName);
         Scan scan = new Scan();
 
         //正则匹配
@@ -495,4 +784,57 @@ public class HBaseHelper implements Closeable {
     }
 
 
+    //按region并行统计行数，只传输每行第一个key
+    public long countRows(String tableNameString) throws IOException {
+        return countRows(tableNameString, null, null);
+    }
+
+    //统计[startRow, stopRow)范围内的行数，startRow、stopRow为null表示不限
+    public long countRows(String tableNameString, String startRow, String stopRow) throws IOException {
+        return new RegionAggregator(connection, getExecutor(), valueCodecs).count(TableName.valueOf(tableNameString),
+                toBytes(startRow), toBytes(stopRow));
+    }
+
+    //对数值列做sum/min/max/count统计，只传输这一列，值按十进制字符串解析，非数字的值跳过
+    public LongSummaryStatistics summarize(String tableNameString, String startRow, String stopRow,
+                                           String family, String colName) throws IOException {
+        return summarize(tableNameString, startRow, stopRow, family, colName, RegionAggregator.NumberEncoding.STRING);
+    }
+
+    //encoding为BINARY时按Bytes.toBytes(long)写入的8字节数值解析，长度不是8的值跳过
+    public LongSummaryStatistics summarize(String tableNameString, String startRow, String stopRow,
+                                           String family, String colName,
+                                           RegionAggregator.NumberEncoding encoding) throws IOException {
+        return new RegionAggregator(connection, getExecutor(), valueCodecs).summarize(TableName.valueOf(tableNameString),
+                toBytes(startRow), toBytes(stopRow), Bytes.toBytes(family), Bytes.toBytes(colName), encoding);
+    }
+
+    //sum、min、max各自都是一次全表扫描，需要多个统计值时直接调用summarize，一次扫描全部得到
+    public long sum(String tableNameString, String family, String colName) throws IOException {
+        return summarize(tableNameString, null, null, family, colName).getSum();
+    }
+
+    //全表扫描，没有值时返回null
+    public Long min(String tableNameString, String family, String colName) throws IOException {
+        LongSummaryStatistics stats = summarize(tableNameString, null, null, family, colName);
+        return stats.getCount() == 0 ? null : stats.getMin();
+    }
+
+    //全表扫描，没有值时返回null
+    public Long max(String tableNameString, String family, String colName) throws IOException {
+        LongSummaryStatistics stats = summarize(tableNameString, null, null, family, colName);
+        return stats.getCount() == 0 ? null : stats.getMax();
+    }
+
+    //估算列值不同值个数，相对标准误差约0.8%，约99%的估算误差在2.5%以内
+    public long distinctEstimate(String tableNameString, String startRow, String stopRow,
+                                 String family, String colName) throws IOException {
+        return new RegionAggregator(connection, getExecutor(), valueCodecs).distinctEstimate(TableName.valueOf(tableNameString),
+                toBytes(startRow), toBytes(stopRow), Bytes.toBytes(family), Bytes.toBytes(colName));
+    }
+
+    private static byte[] toBytes(String s) {
+        return s == null ? null : Bytes.toBytes(s);
+    }
+
 }
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 /**
  * @Author: xu.dm
@@ -23,38 +24,89 @@ public class HbaseDemo {
     static HBaseHelper helper;
     final static String tableNameString ="demoTable" ;
 
-    public static void main(String args[]) throws IOException {
-        Configuration conf = HBaseConfiguration.create();
-        conf.set("hbase.zookeeper.quorum", "192.168.31.10");
-        conf.set("hbase.rootdir", "file:///opt/hbase_data");
-        conf.set("hbase.zookeeper.property.dataDir", "/opt/hbase_data/zookeeper");
-
-        helper = HBaseHelper.getHBaseHelper(conf);
-
-        //创建测试数据
-//        createDemoTable();
-
-        //测试cas
-//        CheckAndMutateExample();
-
-        //测试get
-       // getData();
+    //用法：HbaseDemo [scenario=<场景>] [key=value ...]
+    //hbase.开头的参数写入Configuration（如hbase.zookeeper.quorum），其余参数交给场景使用，
+    //没有指定时读取classpath下的hbase-site.xml。inmemory=true时使用进程内替身Connection
+    //场景：createDemoTable、checkAndMutate、get、batch、createTestTable、pageFilter、count、
+    //skipFilter、multiFilter、customFilter、workload
+    public static void main(String args[]) throws IOException, InterruptedException {
+        Properties props = new Properties();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i <= 0) throw new IllegalArgumentException("expected key=value but got: " + arg);
+            props.setProperty(arg.substring(0, i), arg.substring(i + 1));
+        }
 
-        //批量处理数据
-//        batchData();
+        Configuration conf = HBaseConfiguration.create();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith("hbase.")) conf.set(name, props.getProperty(name));
+        }
 
-        //创建testtable表数据
-//        createTestTable("testtable");
+        if (Boolean.parseBoolean(props.getProperty("inmemory", "false"))) {
+            helper = HBaseHelper.getHBaseHelper(InMemoryConnection.create(conf));
+        } else {
+            helper = HBaseHelper.getHBaseHelper(conf);
+        }
 
-        //分页过滤
-//        pageFilterData();
-//            跳转过滤
-//        skipFilterData();
-//         多个过滤器组合
-//        mutilFilterData();
-        //自定义过滤
-        customFilterData();
+        try {
+            runScenario(props.getProperty("scenario", "customFilter"), props);
+        } finally {
+            helper.close();
+        }
+    }
 
+    private static void runScenario(String scenario, Properties props) throws IOException, InterruptedException {
+        switch (scenario) {
+            //创建测试数据
+            case "createDemoTable":
+                createDemoTable();
+                break;
+            //测试cas
+            case "checkAndMutate":
+                CheckAndMutateExample();
+                break;
+            //测试get
+            case "get":
+                getData();
+                break;
+            //批量处理数据
+            case "batch":
+                batchData();
+                break;
+            //创建testtable表数据
+            case "createTestTable":
+                createTestTable(props.getProperty("table", "testtable"));
+                break;
+            //分页过滤
+            case "pageFilter":
+                pageFilterData();
+                break;
+            //按region并行计数和聚合
+            case "count":
+                countData();
+                break;
+            //跳转过滤
+            case "skipFilter":
+                skipFilterData();
+                break;
+            //多个过滤器组合
+            case "multiFilter":
+                mutilFilterData();
+                break;
+            //自定义过滤
+            case "customFilter":
+                customFilterData();
+                break;
+            //压测，report=text|json|both
+            case "workload":
+                WorkloadDriver.Report report = new WorkloadDriver(helper, props).run();
+                String format = props.getProperty("report", "text");
+                if (!"json".equals(format)) System.out.print(report.toText());
+                if (!"text".equals(format)) System.out.println(report.toJson());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown scenario: " + scenario);
+        }
     }
 
     //清除并插入测试数据
@@ -234,7 +286,6 @@ public class HbaseDemo {
 
         table.close();
         helper.dump(tableNameString);
-        helper.close();
     }
 
     //分页过滤
@@ -281,6 +332,14 @@ public class HbaseDemo {
     }
 
 
+    //按region并行计数，不用像pageFilterData那样把每一行拉回来
+    private static void countData() throws IOException{
+        System.out.println("total rows: " + helper.countRows("testtable"));
+        System.out.println("rows in [rowKey60, rowKey70): " + helper.countRows("testtable","rowKey60","rowKey70"));
+        System.out.println("distinct username: " + helper.distinctEstimate("testtable",null,null,"info","username"));
+    }
+
+
     //跳转过滤
     private static void skipFilterData() throws IOException{
         Table table = helper.getConnection().getTable(TableName.valueOf("demoTable"));
@@ -0,0 +1,165 @@
+import com.codahale.metrics.Counter;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 基于region副本的对冲读
+ * timeline读的Get设置为Consistency.TIMELINE，由HBase客户端自己对冲：先发主region，
+ * 超过hbase.client.primaryCallTimeout.get（批量为hbase.client.primaryCallTimeout.multiget，单位微秒，默认10000）
+ * 没返回就同时发往各个副本，取最先返回的结果，不占用helper的线程池。
+ * 副本返回的Result.isStale()为true，调用方可据此判断数据是否可能过期。
+ * 只适合能接受有限过期的读，表没有副本（REGION_REPLICATION=1）时客户端只会读主region。
+ * 对冲次数取自客户端的MetricsConnection，创建连接时需要设置hbase.client.metrics.enable=true，
+ * 统计的是整个连接的对冲，包括不经过helper发出的timeline读
+ */
+public class HedgedReader {
+
+    public enum ReadMode {
+        //按表的设置决定
+        DEFAULT,
+        //只读主region
+        STRONG,
+        //主region超时后对冲到副本
+        TIMELINE
+    }
+
+    private final Connection connection;
+
+    //默认使用timeline读的表
+    private final Set<TableName> timelineTables = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder timelineReads = new LongAdder();
+    private final LongAdder staleReads = new LongAdder();
+
+    //客户端的对冲计数器，没有开启客户端统计时为null
+    private final Counter hedgedReadOps;
+    private final Counter hedgedReadWins;
+
+    public HedgedReader(Connection connection) {
+        this.connection = connection;
+        MetricsConnection metrics = connection instanceof ClusterConnection
+                ? ((ClusterConnection) connection).getConnectionMetrics() : null;
+        this.hedgedReadOps = clientCounter(metrics, "hedgedReadOps");
+        this.hedgedReadWins = clientCounter(metrics, "hedgedReadWin");
+    }
+
+    //MetricsConnection没有公开对冲计数器的读取方法，只能读protected字段
+    private static Counter clientCounter(MetricsConnection metrics, String name) {
+        if (metrics == null) return null;
+        try {
+            Field field = MetricsConnection.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return (Counter) field.get(metrics);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Error: client metric " + name + " is not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    //表的DEFAULT读改为timeline读
+    public void enable(TableName table) {
+        timelineTables.add(table);
+    }
+
+    public void disable(TableName table) {
+        timelineTables.remove(table);
+    }
+
+    public boolean isEnabled(TableName table) {
+        return timelineTables.contains(table);
+    }
+
+    public Result get(TableName table, Get get, ReadMode mode) throws IOException {
+        reads.increment();
+        Get toSend = get;
+        if (useTimeline(table, mode)) {
+            timelineReads.increment();
+            toSend = timelineGet(get);
+        }
+        Result result;
+        try (Table t = connection.getTable(table)) {
+            result = t.get(toSend);
+        }
+        if (result.isStale()) staleReads.increment();
+        return result;
+    }
+
+    //批量get，每个Get由客户端按所在region分别对冲
+    public Result[] get(TableName table, List<Get> gets, ReadMode mode) throws IOException {
+        reads.add(gets.size());
+        List<Get> toSend = gets;
+        if (useTimeline(table, mode)) {
+            timelineReads.add(gets.size());
+            toSend = new ArrayList<>(gets.size());
+            for (Get get : gets) {
+                toSend.add(timelineGet(get));
+            }
+        }
+        Result[] results;
+        try (Table t = connection.getTable(table)) {
+            results = t.get(toSend);
+        }
+        for (Result result : results) {
+            if (result.isStale()) staleReads.increment();
+        }
+        return results;
+    }
+
+    private boolean useTimeline(TableName table, ReadMode mode) {
+        return mode == ReadMode.TIMELINE || (mode == ReadMode.DEFAULT && timelineTables.contains(table));
+    }
+
+    //复制一份，不修改调用方的Get
+    private static Get timelineGet(Get get) throws IOException {
+        Get timelineGet = new Get(get);
+        timelineGet.setConsistency(Consistency.TIMELINE);
+        return timelineGet;
+    }
+
+    public long getReads() {
+        return reads.sum();
+    }
+
+    //以timeline方式发出的读次数
+    public long getTimelineReads() {
+        return timelineReads.sum();
+    }
+
+    public long getStaleReads() {
+        return staleReads.sum();
+    }
+
+    //客户端发往副本的对冲读次数，没有开启hbase.client.metrics.enable时为-1
+    public long getHedgedReads() {
+        return hedgedReadOps == null ? -1 : hedgedReadOps.getCount();
+    }
+
+    //对冲后副本先于主region返回的次数，没有开启客户端统计时为-1
+    public long getHedgedReadWins() {
+        return hedgedReadWins == null ? -1 : hedgedReadWins.getCount();
+    }
+
+    //每次timeline读发生对冲的比例，没有开启客户端统计时为NaN
+    public double getHedgeRate() {
+        if (hedgedReadOps == null) return Double.NaN;
+        long total = timelineReads.sum();
+        return total == 0 ? 0 : (double) hedgedReadOps.getCount() / total;
+    }
+
+    //每次timeline读返回过期（副本）数据的比例，STRONG读不会过期，不计入分母
+    public double getStaleRate() {
+        long total = timelineReads.sum();
+        return total == 0 ? 0 : (double) staleReads.sum() / total;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: HyperLogLog基数估算，用于distinct计数
+ * 每个region扫描维护一份，最后按寄存器取最大值合并。
+ * 相对标准误差约为1.04/sqrt(2^precision)，默认precision=14时约0.8%，约99%的估算误差在2.5%以内
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(14);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("precision must be between 4 and 18: " + precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void offer(byte[] bytes) {
+        offer(bytes, 0, bytes.length);
+    }
+
+    public void offer(byte[] bytes, int offset, int length) {
+        long hash = hash64(bytes, offset, length);
+        int index = (int) (hash >>> (64 - precision));
+        //剩余位加一个哨兵位，保证前导零个数有上限
+        long w = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision)
+            throw new IllegalArgumentException("precision mismatch: " + precision + " vs " + other.precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    //Ertl的改进估算（"New cardinality estimation algorithms for HyperLogLog sketches"，2017），
+    //按寄存器值的直方图计算，在整个基数范围内近似无偏，不需要HLL++的经验偏差表；
+    //原始估算在2.5m到5m之间有约3%的系统偏差
+    public long estimate() {
+        int m = registers.length;
+        int q = 64 - precision;
+        int[] counts = new int[q + 2];
+        for (byte r : registers) {
+            counts[r]++;
+        }
+        double z = m * tau(1 - (double) counts[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + counts[k]);
+        }
+        z += m * sigma((double) counts[0] / m);
+        return Math.round((double) m * m / (2 * Math.log(2)) / z);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) return Double.POSITIVE_INFINITY;
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) return 0;
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    //FNV-1a加murmur3的fmix64收尾，保证高位分布均匀
+    private static long hash64(byte[] bytes, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= bytes[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
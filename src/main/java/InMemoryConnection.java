@@ -0,0 +1,596 @@
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.*;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.io.TimeRange;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 进程内的Connection替身，数据保存在内存有序表中
+ * 用于没有集群时跑压测驱动和演示代码，只实现helper用到的Table/Admin/RegionLocator/BufferedMutator方法，
+ * 其余方法抛出UnsupportedOperationException。
+ * 与真实HBase的差异：删除直接物理删除不留墓碑，整张表只有一个region，过滤器只按常用语义近似执行
+ */
+public class InMemoryConnection {
+
+    private static final ServerName LOCAL_SERVER = ServerName.valueOf("localhost", 16020, 0L);
+
+    private static final Result EMPTY = Result.create(Collections.<Cell>emptyList());
+
+    private final Configuration configuration;
+    private final Map<TableName, MemTable> tables = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    private InMemoryConnection(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static Connection create(Configuration configuration) {
+        InMemoryConnection target = new InMemoryConnection(configuration);
+        return proxy(Connection.class, target::invokeConnection);
+    }
+
+    //一张内存表：rowKey -> 按CellComparator排序的cell集合
+    private static class MemTable {
+        volatile TableDescriptor descriptor;
+        volatile boolean enabled = true;
+        final ConcurrentSkipListMap<byte[], ConcurrentSkipListSet<Cell>> rows =
+                new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+
+        MemTable(TableDescriptor descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    if (method.getParameterCount() == 0) return "InMemory" + type.getSimpleName();
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                    break;
+                case "equals":
+                    if (method.getParameterCount() == 1) return proxy == args[0];
+                    break;
+            }
+            try {
+                return handler.invoke(method, args == null ? new Object[0] : args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException("InMemoryConnection does not support " +
+                method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+
+    private MemTable table(TableName name) throws TableNotFoundException {
+        MemTable table = tables.get(name);
+        if (table == null) throw new TableNotFoundException(name);
+        return table;
+    }
+
+    private Object invokeConnection(Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getConfiguration":
+                return configuration;
+            case "getTable":
+                TableName tableName = (TableName) args[0];
+                return proxy(Table.class, (m, a) -> invokeTable(tableName, m, a));
+            case "getAdmin":
+                return proxy(Admin.class, this::invokeAdmin);
+            case "getRegionLocator":
+                TableName locatorName = (TableName) args[0];
+                return proxy(RegionLocator.class, (m, a) -> invokeLocator(locatorName, m, a));
+            case "getBufferedMutator": {
+                TableName mutatorName = args[0] instanceof BufferedMutatorParams
+                        ? ((BufferedMutatorParams) args[0]).getTableName() : (TableName) args[0];
+                return proxy(BufferedMutator.class, (m, a) -> invokeMutator(mutatorName, m, a));
+            }
+            case "isClosed":
+                return closed;
+            case "isAborted":
+                return false;
+            case "abort":
+                return null;
+            case "close":
+                closed = true;
+                return null;
+            default:
+                throw unsupported(method);
+        }
+    }
+
+    private Object invokeAdmin(Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "tableExists":
+                return tables.containsKey((TableName) args[0]);
+            case "createTable": {
+                TableDescriptor descriptor = (TableDescriptor) args[0];
+                if (tables.putIfAbsent(descriptor.getTableName(), new MemTable(descriptor)) != null)
+                    throw new TableExistsException(descriptor.getTableName());
+                return null;
+            }
+            case "getDescriptor":
+                return table((TableName) args[0]).descriptor;
+            case "listTableNames":
+                if (args.length == 0) return tables.keySet().toArray(new TableName[0]);
+                throw unsupported(method);
+            case "isTableEnabled":
+                return table((TableName) args[0]).enabled;
+            case "isTableDisabled":
+                return !table((TableName) args[0]).enabled;
+            case "enableTable":
+                table((TableName) args[0]).enabled = true;
+                return null;
+            case "disableTable":
+                table((TableName) args[0]).enabled = false;
+                return null;
+            case "deleteTable":
+                MemTable removed = table((TableName) args[0]);
+                if (removed.enabled) throw new TableNotDisabledException((TableName) args[0]);
+                tables.remove((TableName) args[0]);
+                return null;
+            case "addColumnFamily":
+            case "modifyColumnFamily": {
+                MemTable table = table((TableName) args[0]);
+                ColumnFamilyDescriptor cf = (ColumnFamilyDescriptor) args[1];
+                TableDescriptorBuilder builder = TableDescriptorBuilder.newBuilder(table.descriptor);
+                if (table.descriptor.hasColumnFamily(cf.getName())) builder.modifyColumnFamily(cf);
+                else builder.setColumnFamily(cf);
+                table.descriptor = builder.build();
+                return null;
+            }
+            case "modifyTable": {
+                TableDescriptor descriptor = (TableDescriptor) args[0];
+                table(descriptor.getTableName()).descriptor = descriptor;
+                return null;
+            }
+            case "close":
+                return null;
+            default:
+                throw unsupported(method);
+        }
+    }
+
+    //写入没有缓冲，mutate时直接写入内存表，flush不需要做任何事
+    @SuppressWarnings("unchecked")
+    private Object invokeMutator(TableName name, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getName":
+                return name;
+            case "getConfiguration":
+                return configuration;
+            case "mutate":
+                if (args[0] instanceof Mutation) {
+                    mutate(table(name), (Mutation) args[0]);
+                } else {
+                    for (Mutation mutation : (List<? extends Mutation>) args[0]) mutate(table(name), mutation);
+                }
+                return null;
+            case "getWriteBufferSize":
+                return 0L;
+            case "flush":
+            case "close":
+                return null;
+            default:
+                throw unsupported(method);
+        }
+    }
+
+    //整张表只有一个region，位于本地的虚拟RegionServer上
+    private Object invokeLocator(TableName name, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getName":
+                return name;
+            case "getStartKeys":
+                return new byte[][]{HConstants.EMPTY_START_ROW};
+            case "getEndKeys":
+                return new byte[][]{HConstants.EMPTY_END_ROW};
+            case "getStartEndKeys":
+                return new Pair<>(new byte[][]{HConstants.EMPTY_START_ROW},
+                        new byte[][]{HConstants.EMPTY_END_ROW});
+            case "getRegionLocation":
+                return location(name);
+            case "getAllRegionLocations":
+                return Collections.singletonList(location(name));
+            case "close":
+                return null;
+            default:
+                throw unsupported(method);
+        }
+    }
+
+    private HRegionLocation location(TableName name) throws TableNotFoundException {
+        table(name);
+        return new HRegionLocation(RegionInfoBuilder.newBuilder(name).setRegionId(0).build(), LOCAL_SERVER);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invokeTable(TableName name, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getName":
+                return name;
+            case "getConfiguration":
+                return configuration;
+            case "getDescriptor":
+                return table(name).descriptor;
+            case "get":
+                if (args[0] instanceof Get) return get(table(name), (Get) args[0]);
+                List<Get> gets = (List<Get>) args[0];
+                Result[] results = new Result[gets.size()];
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = get(table(name), gets.get(i));
+                }
+                return results;
+            case "exists":
+                if (args[0] instanceof Get) return !get(table(name), (Get) args[0]).isEmpty();
+                List<Get> existsGets = (List<Get>) args[0];
+                boolean[] exists = new boolean[existsGets.size()];
+                for (int i = 0; i < exists.length; i++) {
+                    exists[i] = !get(table(name), existsGets.get(i)).isEmpty();
+                }
+                return exists;
+            case "put":
+                if (args[0] instanceof Put) {
+                    mutate(table(name), (Put) args[0]);
+                } else {
+                    for (Put put : (List<Put>) args[0]) mutate(table(name), put);
+                }
+                return null;
+            case "delete":
+                if (args[0] instanceof Delete) {
+                    mutate(table(name), (Delete) args[0]);
+                } else {
+                    for (Delete delete : (List<Delete>) args[0]) mutate(table(name), delete);
+                }
+                return null;
+            case "mutateRow":
+                MemTable mutated = table(name);
+                synchronized (mutated) {
+                    for (Mutation mutation : ((RowMutations) args[0]).getMutations()) mutate(mutated, mutation);
+                }
+                return null;
+            case "batch":
+                List<? extends Row> actions = (List<? extends Row>) args[0];
+                Object[] batchResults = (Object[]) args[1];
+                for (int i = 0; i < actions.size(); i++) {
+                    Row action = actions.get(i);
+                    try {
+                        if (action instanceof Get) batchResults[i] = get(table(name), (Get) action);
+                        else if (action instanceof Mutation) {
+                            mutate(table(name), (Mutation) action);
+                            batchResults[i] = EMPTY;
+                        } else throw new UnsupportedOperationException(action.getClass().getSimpleName());
+                    } catch (Exception e) {
+                        batchResults[i] = e;
+                    }
+                }
+                return null;
+            case "getScanner":
+                Scan scan;
+                if (args[0] instanceof Scan) scan = (Scan) args[0];
+                else if (args.length == 1) scan = new Scan().addFamily((byte[]) args[0]);
+                else scan = new Scan().addColumn((byte[]) args[0], (byte[]) args[1]);
+                return new MemScanner(table(name), scan);
+            case "checkAndMutate":
+                return checkAndMutateBuilder(table(name), (byte[]) args[0], (byte[]) args[1]);
+            case "close":
+                return null;
+            default:
+                throw unsupported(method);
+        }
+    }
+
+    private Result get(MemTable table, Get get) throws IOException {
+        ConcurrentSkipListSet<Cell> row = table.rows.get(get.getRow());
+        if (row == null) return EMPTY;
+        List<Cell> cells = select(row, get.getFamilyMap(), get.getMaxVersions(), get.getTimeRange());
+        cells = applyFilter(get.getFilter(), cells);
+        return cells == null || cells.isEmpty() ? EMPTY : Result.create(cells);
+    }
+
+    //按列族/列、版本数和时间范围挑选cell，cell已按列升序、时间戳降序排好
+    private static List<Cell> select(Set<Cell> row, Map<byte[], NavigableSet<byte[]>> familyMap,
+                                     int maxVersions, TimeRange timeRange) {
+        List<Cell> cells = new ArrayList<>();
+        Cell previous = null;
+        int versions = 0;
+        for (Cell cell : row) {
+            if (!familyMap.isEmpty()) {
+                byte[] family = CellUtil.cloneFamily(cell);
+                if (!familyMap.containsKey(family)) continue;
+                NavigableSet<byte[]> qualifiers = familyMap.get(family);
+                if (qualifiers != null && !qualifiers.isEmpty() && !qualifiers.contains(CellUtil.cloneQualifier(cell)))
+                    continue;
+            }
+            if (!timeRange.withinTimeRange(cell.getTimestamp())) continue;
+            if (previous != null && CellUtil.matchingColumn(previous, cell)) {
+                if (++versions > maxVersions) continue;
+            } else {
+                versions = 1;
+            }
+            previous = cell;
+            cells.add(cell);
+        }
+        return cells;
+    }
+
+    //过滤器的近似执行：行键过滤、逐cell过滤和变换、整行过滤；返回null表示后续行都不需要了
+    private static List<Cell> applyFilter(Filter filter, List<Cell> cells) throws IOException {
+        if (filter == null || cells.isEmpty()) return cells;
+        filter.reset();
+        if (filter.filterAllRemaining()) return null;
+        if (filter.filterRowKey(cells.get(0))) return Collections.emptyList();
+        List<Cell> kept = new ArrayList<>();
+        Cell skipColumn = null;
+        for (Cell cell : cells) {
+            if (skipColumn != null && CellUtil.matchingColumn(skipColumn, cell)) continue;
+            skipColumn = null;
+            Filter.ReturnCode code = filter.filterCell(cell);
+            if (code == Filter.ReturnCode.INCLUDE || code == Filter.ReturnCode.INCLUDE_AND_NEXT_COL
+                    || code == Filter.ReturnCode.INCLUDE_AND_SEEK_NEXT_ROW) {
+                kept.add(filter.transformCell(cell));
+            }
+            if (code == Filter.ReturnCode.NEXT_ROW || code == Filter.ReturnCode.INCLUDE_AND_SEEK_NEXT_ROW) break;
+            if (code == Filter.ReturnCode.NEXT_COL || code == Filter.ReturnCode.INCLUDE_AND_NEXT_COL)
+                skipColumn = cell;
+        }
+        filter.filterRowCells(kept);
+        if (filter.hasFilterRow() && filter.filterRow()) return Collections.emptyList();
+        return kept;
+    }
+
+    private static void mutate(MemTable table, Mutation mutation) throws IOException {
+        if (!table.enabled) throw new TableNotEnabledException(table.descriptor.getTableName());
+        long now = System.currentTimeMillis();
+        synchronized (table) {
+            if (mutation instanceof Put) {
+                ConcurrentSkipListSet<Cell> row = table.rows.computeIfAbsent(mutation.getRow(),
+                        k -> new ConcurrentSkipListSet<>(CellComparator.getInstance()));
+                for (List<Cell> familyCells : mutation.getFamilyCellMap().values()) {
+                    for (Cell cell : familyCells) {
+                        long ts = cell.getTimestamp() == HConstants.LATEST_TIMESTAMP ? now : cell.getTimestamp();
+                        KeyValue kv = new KeyValue(CellUtil.cloneRow(cell), CellUtil.cloneFamily(cell),
+                                CellUtil.cloneQualifier(cell), ts, KeyValue.Type.Put, CellUtil.cloneValue(cell));
+                        row.remove(kv);
+                        row.add(kv);
+                    }
+                }
+            } else if (mutation instanceof Delete) {
+                delete(table, (Delete) mutation, now);
+            } else {
+                throw new UnsupportedOperationException(mutation.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private static void delete(MemTable table, Delete delete, long now) {
+        ConcurrentSkipListSet<Cell> row = table.rows.get(delete.getRow());
+        if (row == null) return;
+        if (delete.getFamilyCellMap().isEmpty()) {
+            long ts = delete.getTimestamp() == HConstants.LATEST_TIMESTAMP ? now : delete.getTimestamp();
+            row.removeIf(cell -> cell.getTimestamp() <= ts);
+        }
+        for (List<Cell> familyCells : delete.getFamilyCellMap().values()) {
+            for (Cell marker : familyCells) {
+                long ts = marker.getTimestamp() == HConstants.LATEST_TIMESTAMP ? now : marker.getTimestamp();
+                switch (marker.getType()) {
+                    case DeleteFamily:
+                        row.removeIf(cell -> CellUtil.matchingFamily(cell, marker) && cell.getTimestamp() <= ts);
+                        break;
+                    case DeleteFamilyVersion:
+                        row.removeIf(cell -> CellUtil.matchingFamily(cell, marker) && cell.getTimestamp() == ts);
+                        break;
+                    case DeleteColumn:
+                        row.removeIf(cell -> CellUtil.matchingColumn(cell, marker) && cell.getTimestamp() <= ts);
+                        break;
+                    default:
+                        //只删一个版本，未指定时间戳时删最新版本
+                        for (Cell cell : row) {
+                            if (CellUtil.matchingColumn(cell, marker) &&
+                                    (marker.getTimestamp() == HConstants.LATEST_TIMESTAMP || cell.getTimestamp() == ts)) {
+                                row.remove(cell);
+                                break;
+                            }
+                        }
+                }
+            }
+        }
+        if (row.isEmpty()) table.rows.remove(delete.getRow(), row);
+    }
+
+    //checkAndMutate的构造器，条件检查和修改在同一把表锁内完成，保证原子性
+    private Object checkAndMutateBuilder(MemTable table, byte[] row, byte[] family) {
+        final byte[][] qualifier = {null};
+        final Object[] condition = {null, null}; //CompareOperator，比较值；都为null表示ifNotExists
+        final Object[] builder = {null};
+        builder[0] = proxy(Table.CheckAndMutateBuilder.class, (method, args) -> {
+            switch (method.getName()) {
+                case "qualifier":
+                    qualifier[0] = (byte[]) args[0];
+                    return builder[0];
+                case "timeRange":
+                    return builder[0];
+                case "ifNotExists":
+                    condition[0] = null;
+                    condition[1] = null;
+                    return builder[0];
+                case "ifEquals":
+                    condition[0] = CompareOperator.EQUAL;
+                    condition[1] = args[0];
+                    return builder[0];
+                case "ifMatches":
+                    condition[0] = args[0];
+                    condition[1] = args[1];
+                    return builder[0];
+                case "thenPut":
+                case "thenDelete":
+                case "thenMutate":
+                    synchronized (table) {
+                        if (!matches(table, row, family, qualifier[0],
+                                (CompareOperator) condition[0], (byte[]) condition[1])) return false;
+                        if (args[0] instanceof RowMutations) {
+                            for (Mutation mutation : ((RowMutations) args[0]).getMutations())
+                                mutate(table, mutation);
+                        } else {
+                            mutate(table, (Mutation) args[0]);
+                        }
+                        return true;
+                    }
+                default:
+                    throw unsupported(method);
+            }
+        });
+        return builder[0];
+    }
+
+    private static boolean matches(MemTable table, byte[] row, byte[] family, byte[] qualifier,
+                                   CompareOperator op, byte[] value) {
+        Cell latest = null;
+        ConcurrentSkipListSet<Cell> cells = table.rows.get(row);
+        if (cells != null) {
+            for (Cell cell : cells) {
+                if (CellUtil.matchingColumn(cell, family, qualifier)) {
+                    latest = cell;
+                    break;
+                }
+            }
+        }
+        if (op == null) return latest == null;
+        if (latest == null) return false;
+        //与HBase一致，比较的是 给定值 op 当前值
+        int c = Bytes.compareTo(value, CellUtil.cloneValue(latest));
+        switch (op) {
+            case LESS:
+                return c < 0;
+            case LESS_OR_EQUAL:
+                return c <= 0;
+            case EQUAL:
+                return c == 0;
+            case NOT_EQUAL:
+                return c != 0;
+            case GREATER_OR_EQUAL:
+                return c >= 0;
+            case GREATER:
+                return c > 0;
+            default:
+                return false;
+        }
+    }
+
+    //按行遍历内存表，支持起止行、列选择、版本、时间范围、过滤器、setBatch和setLimit
+    private static class MemScanner implements ResultScanner {
+
+        private final Scan scan;
+        private final Iterator<Map.Entry<byte[], ConcurrentSkipListSet<Cell>>> rows;
+        private final Deque<Result> pending = new ArrayDeque<>();
+        private int returnedRows = 0;
+        private boolean done = false;
+
+        MemScanner(MemTable table, Scan scan) {
+            this.scan = scan;
+            NavigableMap<byte[], ConcurrentSkipListSet<Cell>> range = table.rows;
+            if (scan.getStartRow().length > 0)
+                range = range.tailMap(scan.getStartRow(), scan.includeStartRow());
+            if (scan.getStopRow().length > 0)
+                range = range.headMap(scan.getStopRow(), scan.includeStopRow());
+            this.rows = range.entrySet().iterator();
+        }
+
+        public Result next() throws IOException {
+            while (pending.isEmpty() && !done) {
+                if (!rows.hasNext() || (scan.getLimit() > 0 && returnedRows >= scan.getLimit())) {
+                    done = true;
+                    break;
+                }
+                List<Cell> cells = select(rows.next().getValue(), scan.getFamilyMap(),
+                        scan.getMaxVersions(), scan.getTimeRange());
+                cells = applyFilter(scan.getFilter(), cells);
+                if (cells == null) {
+                    done = true;
+                    break;
+                }
+                if (cells.isEmpty()) continue;
+                returnedRows++;
+                int batch = scan.getBatch() > 0 ? scan.getBatch() : cells.size();
+                for (int i = 0; i < cells.size(); i += batch) {
+                    pending.add(Result.create(cells.subList(i, Math.min(i + batch, cells.size()))));
+                }
+            }
+            return pending.poll();
+        }
+
+        public Result[] next(int nbRows) throws IOException {
+            List<Result> results = new ArrayList<>(nbRows);
+            Result result;
+            while (results.size() < nbRows && (result = next()) != null) {
+                results.add(result);
+            }
+            return results.toArray(new Result[0]);
+        }
+
+        public Iterator<Result> iterator() {
+            return new Iterator<Result>() {
+                private Result next = null;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        try {
+                            next = MemScanner.this.next();
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Result next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    Result result = next;
+                    next = null;
+                    return result;
+                }
+            };
+        }
+
+        public void close() {
+            done = true;
+            pending.clear();
+        }
+
+        public boolean renewLease() {
+            return !done;
+        }
+
+        public ScanMetrics getScanMetrics() {
+            return null;
+        }
+    }
+}
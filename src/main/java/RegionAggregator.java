@@ -0,0 +1,173 @@
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 按region并行的计数和聚合
+ * 每个region一个scan，只取需要的字节（计数只取每行第一个key，聚合只取指定列），
+ * 每个region的部分结果完成一个合并一个，不需要把整行数据拉到客户端
+ */
+public class RegionAggregator {
+
+    //数值列的存储格式，由调用方指定，不按长度猜测
+    public enum NumberEncoding {
+        //helper写入的十进制字符串
+        STRING,
+        //Bytes.toBytes(long)写入的8字节数值
+        BINARY
+    }
+
+    private static final int SCAN_CACHING = 1000;
+
+    private final Connection connection;
+    private final ExecutorService executor;
+    private final ValueCodecs valueCodecs;
+
+    //valueCodecs用于在统计数值前解码列值，可以为null
+    public RegionAggregator(Connection connection, ExecutorService executor, ValueCodecs valueCodecs) {
+        this.connection = connection;
+        this.executor = executor;
+        this.valueCodecs = valueCodecs;
+    }
+
+    //行数统计，startRow、stopRow为null表示整表
+    public long count(TableName table, byte[] startRow, byte[] stopRow) throws IOException {
+        return aggregate(table, startRow, stopRow, this::keyOnlyScan,
+                () -> new long[1],
+                (partial, result) -> partial[0]++,
+                (a, b) -> {
+                    a[0] += b[0];
+                    return a;
+                })[0];
+    }
+
+    //对指定列做sum/min/max/count统计，值按encoding解析，不符合格式的值跳过
+    public LongSummaryStatistics summarize(TableName table, byte[] startRow, byte[] stopRow,
+                                           byte[] family, byte[] qualifier, NumberEncoding encoding)
+            throws IOException {
+        return aggregate(table, startRow, stopRow, range -> columnScan(range, family, qualifier),
+                LongSummaryStatistics::new,
+                (partial, result) -> {
+                    Cell cell = result.getColumnLatestCell(family, qualifier);
+                    if (cell == null) return;
+                    Long value = toLong(valueCodecs == null ? cell : valueCodecs.decode(table, cell), encoding);
+                    if (value != null) partial.accept(value);
+                },
+                (a, b) -> {
+                    a.combine(b);
+                    return a;
+                });
+    }
+
+    //指定列不同值个数的估算
+    public long distinctEstimate(TableName table, byte[] startRow, byte[] stopRow,
+                                 byte[] family, byte[] qualifier) throws IOException {
+        return aggregate(table, startRow, stopRow, range -> columnScan(range, family, qualifier),
+                HyperLogLog::new,
+                (partial, result) -> {
+                    Cell cell = result.getColumnLatestCell(family, qualifier);
+                    if (cell == null) return;
+                    //按解码后的值统计，开启编码前后写入的同一个值只算一次
+                    if (valueCodecs != null) cell = valueCodecs.decode(table, cell);
+                    partial.offer(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+                },
+                (a, b) -> {
+                    a.merge(b);
+                    return a;
+                }).estimate();
+    }
+
+    private interface Accumulator<T> {
+        void accept(T partial, Result result) throws IOException;
+    }
+
+    //每个region提交一个扫描任务，按完成顺序合并部分结果，任一region失败则取消其余任务
+    private <T> T aggregate(TableName table, byte[] startRow, byte[] stopRow,
+                            Function<byte[][], Scan> scanFactory,
+                            Supplier<T> partialFactory, Accumulator<T> accumulator,
+                            BinaryOperator<T> merger) throws IOException {
+        List<byte[][]> ranges = RegionRanges.split(connection, table, startRow, stopRow);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>();
+        for (byte[][] range : ranges) {
+            futures.add(completionService.submit(() -> {
+                T partial = partialFactory.get();
+                try (Table t = connection.getTable(table);
+                     ResultScanner scanner = t.getScanner(scanFactory.apply(range))) {
+                    for (Result result : scanner) {
+                        accumulator.accept(partial, result);
+                    }
+                }
+                return partial;
+            }));
+        }
+
+        T total = partialFactory.get();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                total = merger.apply(total, completionService.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("aggregation on " + table + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("aggregation on " + table + " failed", e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return total;
+    }
+
+    //计数只需要每行第一个cell的key，不传输value
+    private Scan keyOnlyScan(byte[][] range) {
+        FilterList filterList = new FilterList(FilterList.Operator.MUST_PASS_ALL);
+        filterList.addFilter(new FirstKeyOnlyFilter());
+        filterList.addFilter(new KeyOnlyFilter());
+        return baseScan(range).setFilter(filterList);
+    }
+
+    private Scan columnScan(byte[][] range, byte[] family, byte[] qualifier) {
+        return baseScan(range).addColumn(family, qualifier);
+    }
+
+    //聚合是一次性全量扫描，不写入块缓存以免冲掉热点数据
+    private Scan baseScan(byte[][] range) {
+        Scan scan = new Scan();
+        scan.withStartRow(range[0]);
+        scan.withStopRow(range[1]);
+        scan.setCaching(SCAN_CACHING);
+        scan.setCacheBlocks(false);
+        return scan;
+    }
+
+    private static Long toLong(Cell cell, NumberEncoding encoding) {
+        if (encoding == NumberEncoding.BINARY) {
+            if (cell.getValueLength() != Bytes.SIZEOF_LONG) return null;
+            return Bytes.toLong(cell.getValueArray(), cell.getValueOffset());
+        }
+        String value = Bytes.toString(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
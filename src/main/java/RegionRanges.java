@@ -0,0 +1,49 @@
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 按region切分扫描范围，供按region并行扫描使用
+ */
+public class RegionRanges {
+
+    private RegionRanges() {
+    }
+
+    //返回[startRow, stopRow)与每个region的交集，每个元素为{start, stop}，空数组表示无边界
+    //startRow、stopRow为null表示整表
+    public static List<byte[][]> split(Connection connection, TableName table,
+                                       byte[] startRow, byte[] stopRow) throws IOException {
+        byte[] start = startRow == null ? HConstants.EMPTY_START_ROW : startRow;
+        byte[] stop = stopRow == null ? HConstants.EMPTY_END_ROW : stopRow;
+
+        List<byte[][]> ranges = new ArrayList<>();
+        try (RegionLocator locator = connection.getRegionLocator(table)) {
+            Pair<byte[][], byte[][]> keys = locator.getStartEndKeys();
+            for (int i = 0; i < keys.getFirst().length; i++) {
+                byte[] regionStart = keys.getFirst()[i];
+                byte[] regionEnd = keys.getSecond()[i];
+
+                //起始取较大者，结束取较小者，空数组分别代表负无穷和正无穷
+                byte[] s = Bytes.compareTo(start, regionStart) >= 0 ? start : regionStart;
+                byte[] e;
+                if (stop.length == 0) e = regionEnd;
+                else if (regionEnd.length == 0) e = stop;
+                else e = Bytes.compareTo(stop, regionEnd) <= 0 ? stop : regionEnd;
+
+                if (e.length > 0 && Bytes.compareTo(s, e) >= 0) continue;
+                ranges.add(new byte[][]{s, e});
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,174 @@
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 列族性能配置模板
+ * 每个模板声明压缩、数据块编码、布隆过滤器、块大小、in-memory、块缓存和TTL，
+ * 建表时直接套用，已有表通过diff后只修改有差异的列族。
+ * 模板不可变，withXxx返回修改了单个属性的新模板，apply和diff使用修改后的值
+ */
+public final class TableProfile {
+
+    //随机点查：小块 + ROW布隆 + 常驻缓存，减少单次get读取的数据块
+    public static final TableProfile POINT_LOOKUP = new TableProfile("POINT_LOOKUP",
+            Compression.Algorithm.SNAPPY, DataBlockEncoding.FAST_DIFF, BloomType.ROW,
+            16 * 1024, true, true, HConstants.FOREVER);
+
+    //大范围扫描：大块顺序读，布隆过滤器对scan无用，关闭块缓存避免冲掉热点数据
+    public static final TableProfile SCAN_HEAVY = new TableProfile("SCAN_HEAVY",
+            Compression.Algorithm.SNAPPY, DataBlockEncoding.FAST_DIFF, BloomType.NONE,
+            256 * 1024, false, false, HConstants.FOREVER);
+
+    //时序数据：前缀高度重复用DIFF编码，冷数据压缩比优先，默认不过期，保留时间用withTtl指定
+    //cell时间戳就是点的时间，TTL会让早于保留期补写的点写入成功却读不到
+    public static final TableProfile TIME_SERIES = new TableProfile("TIME_SERIES",
+            Compression.Algorithm.GZ, DataBlockEncoding.DIFF, BloomType.ROW,
+            64 * 1024, false, true, HConstants.FOREVER);
+
+    private static final TableProfile[] NAMED = {POINT_LOOKUP, SCAN_HEAVY, TIME_SERIES};
+
+    private final String name;
+    private final Compression.Algorithm compression;
+    private final DataBlockEncoding encoding;
+    private final BloomType bloomType;
+    private final int blockSize;
+    private final boolean inMemory;
+    private final boolean blockCacheEnabled;
+    private final int ttl;
+
+    private TableProfile(String name, Compression.Algorithm compression, DataBlockEncoding encoding,
+                         BloomType bloomType, int blockSize, boolean inMemory, boolean blockCacheEnabled, int ttl) {
+        this.name = name;
+        this.compression = compression;
+        this.encoding = encoding;
+        this.bloomType = bloomType;
+        this.blockSize = blockSize;
+        this.inMemory = inMemory;
+        this.blockCacheEnabled = blockCacheEnabled;
+        this.ttl = ttl;
+    }
+
+    //按名称查找模板，支持"point-lookup"、"scan-heavy"、"time-series"这种写法
+    public static TableProfile of(String name) {
+        String normalized = name.trim().toUpperCase().replace('-', '_');
+        for (TableProfile profile : NAMED) {
+            if (profile.name.equals(normalized)) return profile;
+        }
+        throw new IllegalArgumentException("unknown table profile: " + name);
+    }
+
+    //以下with方法返回只修改一个属性的副本，例如集群没有native snappy时POINT_LOOKUP.withCompression(GZ)
+    public TableProfile withCompression(Compression.Algorithm compression) {
+        return new TableProfile(name + "(COMPRESSION=" + compression + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    public TableProfile withEncoding(DataBlockEncoding encoding) {
+        return new TableProfile(name + "(DATA_BLOCK_ENCODING=" + encoding + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    public TableProfile withBloomType(BloomType bloomType) {
+        return new TableProfile(name + "(BLOOMFILTER=" + bloomType + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    public TableProfile withBlockSize(int blockSize) {
+        return new TableProfile(name + "(BLOCKSIZE=" + blockSize + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    public TableProfile withInMemory(boolean inMemory) {
+        return new TableProfile(name + "(IN_MEMORY=" + inMemory + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    public TableProfile withBlockCacheEnabled(boolean blockCacheEnabled) {
+        return new TableProfile(name + "(BLOCKCACHE=" + blockCacheEnabled + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    //ttl单位秒，HConstants.FOREVER表示不过期
+    public TableProfile withTtl(int ttl) {
+        if (ttl <= 0) throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        return new TableProfile(name + "(TTL=" + ttl + ")", compression, encoding,
+                bloomType, blockSize, inMemory, blockCacheEnabled, ttl);
+    }
+
+    //把模板参数写入列族描述构造器
+    public ColumnFamilyDescriptorBuilder apply(ColumnFamilyDescriptorBuilder builder) {
+        return builder.setCompressionType(compression)
+                .setDataBlockEncoding(encoding)
+                .setBloomFilterType(bloomType)
+                .setBlocksize(blockSize)
+                .setInMemory(inMemory)
+                .setBlockCacheEnabled(blockCacheEnabled)
+                .setTimeToLive(ttl);
+    }
+
+    //比较已有列族和模板，返回不一致的属性说明，空列表表示无需修改
+    public List<String> diff(ColumnFamilyDescriptor cfDesc) {
+        List<String> diffs = new ArrayList<>();
+        if (cfDesc.getCompressionType() != compression)
+            diffs.add("COMPRESSION: " + cfDesc.getCompressionType() + " -> " + compression);
+        if (cfDesc.getDataBlockEncoding() != encoding)
+            diffs.add("DATA_BLOCK_ENCODING: " + cfDesc.getDataBlockEncoding() + " -> " + encoding);
+        if (cfDesc.getBloomFilterType() != bloomType)
+            diffs.add("BLOOMFILTER: " + cfDesc.getBloomFilterType() + " -> " + bloomType);
+        if (cfDesc.getBlocksize() != blockSize)
+            diffs.add("BLOCKSIZE: " + cfDesc.getBlocksize() + " -> " + blockSize);
+        if (cfDesc.isInMemory() != inMemory)
+            diffs.add("IN_MEMORY: " + cfDesc.isInMemory() + " -> " + inMemory);
+        if (cfDesc.isBlockCacheEnabled() != blockCacheEnabled)
+            diffs.add("BLOCKCACHE: " + cfDesc.isBlockCacheEnabled() + " -> " + blockCacheEnabled);
+        if (cfDesc.getTimeToLive() != ttl)
+            diffs.add("TTL: " + cfDesc.getTimeToLive() + " -> " + ttl);
+        return diffs;
+    }
+
+    public Compression.Algorithm getCompression() {
+        return compression;
+    }
+
+    public DataBlockEncoding getEncoding() {
+        return encoding;
+    }
+
+    public BloomType getBloomType() {
+        return bloomType;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
+    public boolean isBlockCacheEnabled() {
+        return blockCacheEnabled;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
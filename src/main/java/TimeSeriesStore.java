@@ -0,0 +1,264 @@
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 时序数据存储
+ * 一个序列按时间窗口分桶，每个桶一行：rowKey = seriesId + 0x00 + 桶起始时间(8字节)，
+ * 列名为点在桶内的毫秒偏移(4字节)，列值为8字节double，cell时间戳就是点的时间戳。
+ * 读取时按桶范围切成若干个scan并行执行，并用setTimeRange裁掉范围外的点，
+ * 一次范围查询只涉及少量宽行，而不是每个点一行。
+ * 列族设置了TTL时，早于 当前时间 - TTL 的点写入后立即过期，append会直接拒绝
+ */
+public class TimeSeriesStore {
+
+    //降采样的聚合方式
+    public enum Aggregation {
+        AVG, MIN, MAX, SUM, COUNT
+    }
+
+    public static class DataPoint {
+        private final long timestamp;
+        private final double value;
+
+        public DataPoint(long timestamp, double value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + "=" + value;
+        }
+    }
+
+    //每个scan覆盖的桶数
+    private static final int BUCKETS_PER_SCAN = 4;
+
+    private final Connection connection;
+    private final ExecutorService executor;
+    private final TableName table;
+    private final byte[] family;
+    private final long bucketMillis;
+    //列族TTL（毫秒），第一次写入时读取，Long.MAX_VALUE表示不过期
+    private volatile long ttlMillis = -1;
+
+    public TimeSeriesStore(Connection connection, ExecutorService executor, TableName table,
+                           byte[] family, long bucketMillis) {
+        //桶内偏移用4字节int保存
+        if (bucketMillis <= 0 || bucketMillis > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("bucketMillis must be in (0, " + Integer.MAX_VALUE + "]: " + bucketMillis);
+        this.connection = connection;
+        this.executor = executor;
+        this.table = table;
+        this.family = family;
+        this.bucketMillis = bucketMillis;
+    }
+
+    public void append(String seriesId, long timestamp, double value) throws IOException {
+        checkRetention(timestamp);
+        try (Table t = connection.getTable(table)) {
+            t.put(toPut(seriesId, timestamp, value));
+        }
+    }
+
+    //批量写入同一个序列的多个点
+    public void append(String seriesId, List<DataPoint> points) throws IOException {
+        List<Put> puts = new ArrayList<>(points.size());
+        for (DataPoint point : points) {
+            checkRetention(point.getTimestamp());
+            puts.add(toPut(seriesId, point.getTimestamp(), point.getValue()));
+        }
+        try (Table t = connection.getTable(table)) {
+            t.put(puts);
+        }
+    }
+
+    //读取[from, to)内的原始点，按时间升序
+    public List<DataPoint> read(String seriesId, long from, long to) throws IOException {
+        List<DataPoint> points = new ArrayList<>();
+        for (List<DataPoint> part : scanBuckets(seriesId, from, to, scanner -> {
+            List<DataPoint> list = new ArrayList<>();
+            for (Result result : scanner) {
+                long bucketStart = bucketStart(result.getRow());
+                for (Cell cell : result.rawCells()) {
+                    list.add(new DataPoint(bucketStart + Bytes.toInt(cell.getQualifierArray(),
+                            cell.getQualifierOffset()), Bytes.toDouble(cell.getValueArray(), cell.getValueOffset())));
+                }
+            }
+            return list;
+        })) {
+            points.addAll(part);
+        }
+        return points;
+    }
+
+    //读取[from, to)并按intervalMillis降采样，窗口按from对齐，每个窗口返回一个点，时间戳为窗口起始
+    //每个scan任务各自聚合，客户端只保留每个窗口的聚合值
+    public List<DataPoint> read(String seriesId, long from, long to, long intervalMillis,
+                                Aggregation aggregation) throws IOException {
+        if (intervalMillis <= 0) throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        TreeMap<Long, Accumulator> windows = new TreeMap<>();
+        for (Map<Long, Accumulator> part : scanBuckets(seriesId, from, to, scanner -> {
+            Map<Long, Accumulator> map = new HashMap<>();
+            for (Result result : scanner) {
+                long bucketStart = bucketStart(result.getRow());
+                for (Cell cell : result.rawCells()) {
+                    long ts = bucketStart + Bytes.toInt(cell.getQualifierArray(), cell.getQualifierOffset());
+                    long window = from + (ts - from) / intervalMillis * intervalMillis;
+                    map.computeIfAbsent(window, k -> new Accumulator())
+                            .add(Bytes.toDouble(cell.getValueArray(), cell.getValueOffset()));
+                }
+            }
+            return map;
+        })) {
+            for (Map.Entry<Long, Accumulator> entry : part.entrySet()) {
+                windows.merge(entry.getKey(), entry.getValue(), Accumulator::merge);
+            }
+        }
+
+        List<DataPoint> points = new ArrayList<>(windows.size());
+        for (Map.Entry<Long, Accumulator> entry : windows.entrySet()) {
+            points.add(new DataPoint(entry.getKey(), entry.getValue().get(aggregation)));
+        }
+        return points;
+    }
+
+    private interface ScanHandler<T> {
+        T handle(ResultScanner scanner) throws IOException;
+    }
+
+    //把[from, to)涉及的桶按BUCKETS_PER_SCAN切成多个scan并行执行，结果按时间顺序返回
+    private <T> List<T> scanBuckets(String seriesId, long from, long to, ScanHandler<T> handler)
+            throws IOException {
+        if (from < 0 || to <= from) return Collections.emptyList();
+        long firstBucket = bucketOf(from);
+        long lastBucket = bucketOf(to - 1);
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket += BUCKETS_PER_SCAN * bucketMillis) {
+            long[] range = {bucket, Math.min(lastBucket, bucket + (BUCKETS_PER_SCAN - 1) * bucketMillis)};
+            Scan scan = new Scan();
+            scan.withStartRow(rowKey(seriesId, range[0]), true);
+            scan.withStopRow(rowKey(seriesId, range[1]), true);
+            scan.addFamily(family);
+            scan.setTimeRange(from, to);
+            scan.readVersions(1);
+            futures.add(executor.submit(() -> {
+                try (Table t = connection.getTable(table);
+                     ResultScanner scanner = t.getScanner(scan)) {
+                    return handler.handle(scanner);
+                }
+            }));
+        }
+
+        List<T> parts = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                parts.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("time series read on " + table + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("time series read on " + table + " failed", e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return parts;
+    }
+
+    //早于保留期的点写入后读不到，直接拒绝，避免补写历史数据时静默丢失
+    private void checkRetention(long timestamp) throws IOException {
+        if (ttlMillis < 0) {
+            try (Admin admin = connection.getAdmin()) {
+                int ttl = admin.getDescriptor(table).getColumnFamily(family).getTimeToLive();
+                ttlMillis = ttl == HConstants.FOREVER ? Long.MAX_VALUE : ttl * 1000L;
+            }
+        }
+        if (ttlMillis != Long.MAX_VALUE && timestamp < System.currentTimeMillis() - ttlMillis)
+            throw new IllegalArgumentException("timestamp " + timestamp + " is older than the " +
+                    ttlMillis / 1000 + "s TTL of " + table + ":" + Bytes.toString(family));
+    }
+
+    private Put toPut(String seriesId, long timestamp, double value) {
+        if (timestamp < 0) throw new IllegalArgumentException("timestamp must not be negative: " + timestamp);
+        long bucket = bucketOf(timestamp);
+        Put put = new Put(rowKey(seriesId, bucket));
+        put.addColumn(family, Bytes.toBytes((int) (timestamp - bucket)), timestamp, Bytes.toBytes(value));
+        return put;
+    }
+
+    private long bucketOf(long timestamp) {
+        return timestamp - timestamp % bucketMillis;
+    }
+
+    private static byte[] rowKey(String seriesId, long bucketStart) {
+        byte[] id = Bytes.toBytes(seriesId);
+        if (Bytes.indexOf(id, (byte) 0) >= 0)
+            throw new IllegalArgumentException("seriesId must not contain \\0: " + seriesId);
+        return Bytes.add(id, new byte[]{0}, Bytes.toBytes(bucketStart));
+    }
+
+    private static long bucketStart(byte[] row) {
+        return Bytes.toLong(row, row.length - Bytes.SIZEOF_LONG);
+    }
+
+    private static class Accumulator {
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        Accumulator merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        double get(Aggregation aggregation) {
+            switch (aggregation) {
+                case MIN:
+                    return min;
+                case MAX:
+                    return max;
+                case SUM:
+                    return sum;
+                case COUNT:
+                    return count;
+                default:
+                    return sum / count;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+import java.io.IOException;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 列值编解码
+ * 编码结果以MAGIC字节开头，第二个字节为编码id，之后是各编码自己的头部和数据。
+ * MAGIC为0xFE，不会出现在UTF-8文本的开头，所以没有头部的旧数据按原样读取
+ */
+public interface ValueCodec {
+
+    byte MAGIC = (byte) 0xFE;
+
+    //编码id，写在头部第二个字节
+    byte id();
+
+    String name();
+
+    //返回带头部的编码结果，压缩后不比原值小时返回null，由调用方按原值写入
+    byte[] encode(byte[] value);
+
+    //data为完整的编码结果（包含头部）
+    byte[] decode(byte[] data, int offset, int length) throws IOException;
+}
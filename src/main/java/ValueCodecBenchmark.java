@@ -0,0 +1,117 @@
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 列值编码的基准测试，对比不编码、快速压缩、字典压缩的写入字节数和编解码CPU耗时
+ * 用法：ValueCodecBenchmark [样本文件，每行一个值]，不指定时使用生成的JSON样本
+ */
+public class ValueCodecBenchmark {
+
+    private static final TableName TABLE = TableName.valueOf("bench");
+    private static final byte[] FAMILY = Bytes.toBytes("cf");
+    private static final byte[] QUALIFIER = Bytes.toBytes("v");
+
+    public static void main(String[] args) throws IOException {
+        checkUnconfiguredColumns();
+
+        List<byte[]> values = new ArrayList<>();
+        if (args.length > 0) {
+            for (String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) values.add(Bytes.toBytes(line));
+            }
+        } else {
+            Random random = new Random(42);
+            for (int i = 0; i < 20000; i++) {
+                values.add(Bytes.toBytes(sampleJson(random, i)));
+            }
+        }
+
+        //前10%的样本训练字典，其余用于测试
+        int trainSize = Math.max(1, values.size() / 10);
+        DeflateCodec dictionary = DeflateCodec.train(values.subList(0, trainSize), 4096);
+        List<byte[]> test = values.subList(trainSize, values.size());
+
+        System.out.printf("%d values, dictionary %d bytes%n", test.size(), dictionary.getDictionary().length);
+        System.out.printf("%-22s %12s %12s %8s %12s %12s%n",
+                "codec", "raw bytes", "stored", "ratio", "encode us", "decode us");
+        for (ValueCodec codec : Arrays.asList(null, ValueCodecs.fast(), dictionary)) {
+            run(codec, test);
+        }
+    }
+
+    private static void run(ValueCodec codec, List<byte[]> values) throws IOException {
+        ValueCodecs codecs = new ValueCodecs();
+        codecs.setCodec(TABLE, FAMILY, null, codec);
+
+        //预热JIT
+        for (int round = 0; round < 3; round++) {
+            for (byte[] value : values) {
+                byte[] stored = codecs.encode(TABLE, FAMILY, QUALIFIER, value);
+                codecs.decode(TABLE, FAMILY, QUALIFIER, stored, 0, stored.length);
+            }
+        }
+
+        long raw = 0;
+        long stored = 0;
+        byte[][] encoded = new byte[values.size()][];
+        long start = System.nanoTime();
+        for (int i = 0; i < values.size(); i++) {
+            encoded[i] = codecs.encode(TABLE, FAMILY, QUALIFIER, values.get(i));
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < values.size(); i++) {
+            byte[] decoded = codecs.decode(TABLE, FAMILY, QUALIFIER, encoded[i], 0, encoded[i].length);
+            if (decoded == null) decoded = encoded[i];
+            if (!Bytes.equals(decoded, values.get(i))) throw new IllegalStateException("round trip failed at " + i);
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < values.size(); i++) {
+            raw += values.get(i).length;
+            stored += encoded[i].length;
+        }
+        System.out.printf("%-22s %12d %12d %7.1f%% %12.2f %12.2f%n",
+                codec == null ? "none" : codec.name(), raw, stored, 100.0 * stored / raw,
+                encodeNanos / 1000.0 / values.size(), decodeNanos / 1000.0 / values.size());
+    }
+
+    //没配置编码的列写入、读取都应原样保留任意二进制值，包括以MAGIC开头的值
+    private static void checkUnconfiguredColumns() throws IOException {
+        ValueCodecs codecs = new ValueCodecs();
+        codecs.setCodec(TABLE, FAMILY, null, ValueCodecs.fast());
+        byte[] family = Bytes.toBytes("cf2");
+        byte[][] values = {{ValueCodec.MAGIC, 1, 2, 3}, {ValueCodec.MAGIC, ValueCodecs.NONE_ID}, {ValueCodec.MAGIC}};
+        for (byte[] value : values) {
+            byte[] stored = codecs.encode(TABLE, family, QUALIFIER, value);
+            byte[] decoded = codecs.decode(TABLE, family, QUALIFIER, stored, 0, stored.length);
+            if (!Bytes.equals(stored, value) || decoded != null)
+                throw new IllegalStateException("raw value " + Bytes.toStringBinary(value) + " changed in unconfigured column");
+        }
+    }
+
+    //结构相同、内容不同的小JSON，模拟业务里大量相似的值
+    private static String sampleJson(Random random, int i) {
+        String[] cities = {"Beijing", "Shanghai", "Guangzhou", "Shenzhen", "Hangzhou"};
+        String[] status = {"ACTIVE", "INACTIVE", "PENDING"};
+        return "{\"userId\":\"user" + i + "\",\"name\":\"user-name-" + random.nextInt(100000) +
+                "\",\"address\":{\"city\":\"" + cities[random.nextInt(cities.length)] +
+                "\",\"street\":\"street " + random.nextInt(1000) + "\"},\"status\":\"" +
+                status[random.nextInt(status.length)] + "\",\"score\":" + random.nextInt(1000) +
+                ",\"tags\":[\"tag" + random.nextInt(20) + "\",\"tag" + random.nextInt(20) + "\"]," +
+                "\"createdAt\":\"2019-04-" + (10 + random.nextInt(20)) + "T10:" + (10 + random.nextInt(50)) +
+                ":00Z\"}";
+    }
+}
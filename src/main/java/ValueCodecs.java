@@ -0,0 +1,356 @@
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellBuilderFactory;
+import org.apache.hadoop.hbase.CellBuilderType;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 按表、列族、列配置列值编码，helper的读写路径统一经过这里
+ * 写入时按配置编码（列配置优先于列族配置，没有配置不编码）；
+ * 读取时只解码配置过编码的列（取消编码后仍然解码），按值的头部选择编码，更换编码后旧数据仍然可读。
+ * 从没配置过编码的列原样返回，所以任意二进制值不受影响；
+ * helper把配置和字典保存在列族属性里，同一张表的所有读写进程第一次读写时从表描述符加载，
+ * 其他进程修改配置后要等到下一次重新加载才生效，开启编码前应先让所有读取方加载到新配置（例如先设置为none）；
+ * 开启编码前已有以0xFE开头的旧值的列族，读取时会被当作编码过的值，应在新列族上开启
+ */
+public class ValueCodecs {
+
+    public static final byte NONE_ID = 0;
+
+    //列族属性里保存编码配置的key，整个列族为VALUE_CODEC，单个列为VALUE_CODEC:列名，值为编码名，
+    //取消编码后为none；字典编码的字典保存在VALUE_DICTIONARY:字典id（十六进制）
+    public static final String CODEC_KEY = "VALUE_CODEC";
+    public static final String DICTIONARY_KEY = "VALUE_DICTIONARY";
+    private static final String NONE = "none";
+
+    private static final DeflateCodec FAST = new DeflateCodec();
+
+    //按表读取描述符，编码配置从列族属性加载
+    public interface DescriptorSource {
+        TableDescriptor getDescriptor(TableName table) throws IOException;
+    }
+
+    //一张表的编码配置，key为 列族 或 列族:列
+    private static class TableCodecs {
+        final Map<String, ValueCodec> codecs = new ConcurrentHashMap<>();
+        //配置过编码的列族、列，取消编码后也保留，读取时需要解码
+        final Set<String> encodedColumns = ConcurrentHashMap.newKeySet();
+        final long loadedAt;
+
+        TableCodecs(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        void put(String key, ValueCodec codec) {
+            if (codec != null) codecs.put(key, codec);
+            encodedColumns.add(key);
+        }
+    }
+
+    private final DescriptorSource source;
+    private final long refreshMillis;
+    private final Map<TableName, TableCodecs> tables = new ConcurrentHashMap<>();
+    //读取带字典编码的值时按字典id找回字典
+    private final Map<Integer, DeflateCodec> dictionaries = new ConcurrentHashMap<>();
+
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    //只使用setCodec在本进程内配置，不读取表描述符
+    public ValueCodecs() {
+        this(null, 0);
+    }
+
+    //第一次读写一张表时从source加载编码配置，之后每隔refreshMillis重新加载，0表示不重新加载
+    public ValueCodecs(DescriptorSource source, long refreshMillis) {
+        this.source = source;
+        this.refreshMillis = refreshMillis;
+    }
+
+    //快速压缩编码
+    public static ValueCodec fast() {
+        return FAST;
+    }
+
+    //只修改本进程内的配置，qualifier为null表示整个列族，codec为null表示取消编码
+    //有DescriptorSource时下一次加载会被表描述符里的配置覆盖，应先用withCodec修改表描述符再reload
+    public void setCodec(TableName table, byte[] family, byte[] qualifier, ValueCodec codec) {
+        String key = key(family, qualifier);
+        TableCodecs state = tables.computeIfAbsent(table, t -> new TableCodecs(0));
+        if (codec == null) {
+            state.codecs.remove(key);
+            return;
+        }
+        if (codec instanceof DeflateCodec && codec.id() == DeflateCodec.DICTIONARY_ID) {
+            registerDictionary((DeflateCodec) codec);
+        }
+        state.put(key, codec);
+    }
+
+    //返回在列族属性里设置了编码的表描述符，只支持DeflateCodec；字典编码的字典一并保存，其他进程加载后可以解码
+    //codec为null表示取消编码，已写入的值仍然解码；列族或列从没配置过编码时原样返回
+    public static TableDescriptor withCodec(TableDescriptor descriptor, byte[] family, byte[] qualifier,
+                                            ValueCodec codec) {
+        ColumnFamilyDescriptor current = descriptor.getColumnFamily(family);
+        if (current == null) throw new IllegalArgumentException("no family " + Bytes.toStringBinary(family) +
+                " in " + descriptor.getTableName());
+        if (codec != null && !(codec instanceof DeflateCodec))
+            throw new IllegalArgumentException("codec " + codec.name() + " cannot be saved in the table descriptor");
+        String key = qualifier == null ? CODEC_KEY : CODEC_KEY + ":" + Bytes.toStringBinary(qualifier);
+        if (codec == null && current.getValue(Bytes.toBytes(key)) == null) return descriptor;
+
+        ColumnFamilyDescriptorBuilder builder = ColumnFamilyDescriptorBuilder.newBuilder(current);
+        builder.setValue(key, codec == null ? NONE : codec.name());
+        if (codec != null && codec.id() == DeflateCodec.DICTIONARY_ID) {
+            DeflateCodec dictionary = (DeflateCodec) codec;
+            builder.setValue(Bytes.toBytes(dictionaryKey(dictionary.getDictionaryId())), dictionary.getDictionary());
+        }
+        return TableDescriptorBuilder.newBuilder(descriptor).modifyColumnFamily(builder.build()).build();
+    }
+
+    //立即从表描述符重新加载编码配置，修改表描述符后调用
+    public void reload(TableName table) throws IOException {
+        if (source != null) load(table);
+    }
+
+    private TableCodecs load(TableName table) throws IOException {
+        TableCodecs state = new TableCodecs(System.currentTimeMillis());
+        ColumnFamilyDescriptor[] families = source.getDescriptor(table).getColumnFamilies();
+        //先登记字典，编码名里只有字典id
+        for (ColumnFamilyDescriptor cf : families) {
+            for (Map.Entry<Bytes, Bytes> entry : cf.getValues().entrySet()) {
+                String name = Bytes.toString(entry.getKey().copyBytes());
+                if (!name.startsWith(DICTIONARY_KEY + ":")) continue;
+                int id = Integer.parseUnsignedInt(name.substring(DICTIONARY_KEY.length() + 1), 16);
+                if (!dictionaries.containsKey(id)) registerDictionary(new DeflateCodec(entry.getValue().copyBytes(), id));
+            }
+        }
+        for (ColumnFamilyDescriptor cf : families) {
+            for (Map.Entry<Bytes, Bytes> entry : cf.getValues().entrySet()) {
+                String name = Bytes.toString(entry.getKey().copyBytes());
+                byte[] qualifier;
+                if (name.equals(CODEC_KEY)) qualifier = null;
+                else if (name.startsWith(CODEC_KEY + ":")) qualifier = Bytes.toBytesBinary(name.substring(CODEC_KEY.length() + 1));
+                else continue;
+                state.put(key(cf.getName(), qualifier), codec(table, Bytes.toString(entry.getValue().copyBytes())));
+            }
+        }
+        tables.put(table, state);
+        return state;
+    }
+
+    //按编码名找回编码，none返回null
+    private ValueCodec codec(TableName table, String name) throws IOException {
+        if (name.equals(NONE)) return null;
+        if (name.equals(FAST.name())) return FAST;
+        String prefix = "deflate-dict-";
+        if (name.startsWith(prefix)) {
+            DeflateCodec codec = dictionaries.get(Integer.parseUnsignedInt(name.substring(prefix.length()), 16));
+            if (codec == null) throw new IOException("value dictionary of " + name + " not found in " + table);
+            return codec;
+        }
+        throw new IOException("unknown value codec " + name + " in " + table);
+    }
+
+    //表的编码配置，有DescriptorSource时第一次使用和到期后从表描述符加载；没有配置时返回null
+    private TableCodecs state(TableName table) throws IOException {
+        TableCodecs state = tables.get(table);
+        if (source != null && (state == null ||
+                (refreshMillis > 0 && System.currentTimeMillis() - state.loadedAt >= refreshMillis))) {
+            state = load(table);
+        }
+        return state == null || state.encodedColumns.isEmpty() ? null : state;
+    }
+
+    //只读不写的进程也需要登记写入方用过的字典
+    public void registerDictionary(DeflateCodec codec) {
+        dictionaries.put(codec.getDictionaryId(), codec);
+    }
+
+    //列族或列是否配置过编码，这些列的值不能在服务端按原值比较
+    public boolean isEncoded(TableName table, byte[] family, byte[] qualifier) throws IOException {
+        return isEncoded(state(table), family, qualifier);
+    }
+
+    //表是否有配置过编码的列
+    public boolean hasEncodedColumns(TableName table) throws IOException {
+        return state(table) != null;
+    }
+
+    private static boolean isEncoded(TableCodecs state, byte[] family, byte[] qualifier) {
+        return state != null && (state.encodedColumns.contains(key(family, qualifier)) ||
+                state.encodedColumns.contains(key(family, null)));
+    }
+
+    public ValueCodec getCodec(TableName table, byte[] family, byte[] qualifier) throws IOException {
+        return getCodec(state(table), family, qualifier);
+    }
+
+    private static ValueCodec getCodec(TableCodecs state, byte[] family, byte[] qualifier) {
+        if (state == null) return null;
+        ValueCodec codec = state.codecs.get(key(family, qualifier));
+        return codec != null ? codec : state.codecs.get(key(family, null));
+    }
+
+    public byte[] encode(TableName table, byte[] family, byte[] qualifier, byte[] value) throws IOException {
+        return encode(state(table), family, qualifier, value);
+    }
+
+    private byte[] encode(TableCodecs state, byte[] family, byte[] qualifier, byte[] value) {
+        ValueCodec codec = getCodec(state, family, qualifier);
+        byte[] stored = null;
+        if (codec != null && value.length > 0) {
+            stored = codec.encode(value);
+            if (stored != null && stored.length >= value.length) stored = null;
+        }
+        if (stored == null) {
+            //配置过编码的列读取时会解码，原值恰好以MAGIC开头时加一个不编码的头部，避免被误认为编码过；
+            //从没配置过编码的列读取时原样返回，不能加头部
+            stored = value.length > 0 && value[0] == ValueCodec.MAGIC && isEncoded(state, family, qualifier)
+                    ? Bytes.add(new byte[]{ValueCodec.MAGIC, NONE_ID}, value) : value;
+        }
+        if (codec != null) {
+            rawBytes.add(value.length);
+            storedBytes.add(stored.length);
+        }
+        return stored;
+    }
+
+    //返回编码后的Put副本，表没有配置编码时原样返回
+    public Put encode(TableName table, Put put) throws IOException {
+        return encode(state(table), put);
+    }
+
+    private Put encode(TableCodecs state, Put put) {
+        if (put == null || state == null) return put;
+        Put copy = new Put(put);
+        for (Map.Entry<byte[], List<Cell>> entry : copy.getFamilyCellMap().entrySet()) {
+            List<Cell> cells = entry.getValue();
+            for (int i = 0; i < cells.size(); i++) {
+                Cell cell = cells.get(i);
+                byte[] value = CellUtil.cloneValue(cell);
+                byte[] stored = encode(state, entry.getKey(), CellUtil.cloneQualifier(cell), value);
+                if (stored != value) cells.set(i, withValue(cell, stored));
+            }
+        }
+        return copy;
+    }
+
+    public List<Put> encode(TableName table, List<Put> puts) throws IOException {
+        TableCodecs state = state(table);
+        if (puts == null || state == null) return puts;
+        List<Put> encoded = new ArrayList<>(puts.size());
+        for (Put put : puts) {
+            encoded.add(encode(state, put));
+        }
+        return encoded;
+    }
+
+    //列配置过编码时按头部解码，否则（或不是编码过的值）返回null
+    public byte[] decode(TableName table, byte[] family, byte[] qualifier,
+                         byte[] data, int offset, int length) throws IOException {
+        if (!isEncoded(table, family, qualifier)) return null;
+        return decode(data, offset, length);
+    }
+
+    //按头部解码，不检查列配置，不是编码过的值返回null
+    byte[] decode(byte[] data, int offset, int length) throws IOException {
+        if (length < 2 || data[offset] != ValueCodec.MAGIC) return null;
+        switch (data[offset + 1]) {
+            case NONE_ID:
+                byte[] raw = new byte[length - 2];
+                System.arraycopy(data, offset + 2, raw, 0, raw.length);
+                return raw;
+            case DeflateCodec.FAST_ID:
+                return FAST.decode(data, offset, length);
+            case DeflateCodec.DICTIONARY_ID:
+                if (length < 2 + Bytes.SIZEOF_INT) throw new IOException("corrupt value: truncated dictionary header");
+                int dictionaryId = Bytes.toInt(data, offset + 2);
+                DeflateCodec codec = dictionaries.get(dictionaryId);
+                if (codec == null) throw new IOException("unknown value dictionary " + Integer.toHexString(dictionaryId));
+                return codec.decode(data, offset, length);
+            default:
+                //未知的编码id，按原值返回
+                return null;
+        }
+    }
+
+    public Cell decode(TableName table, Cell cell) throws IOException {
+        return decode(state(table), cell);
+    }
+
+    private Cell decode(TableCodecs state, Cell cell) throws IOException {
+        if (state == null) return cell;
+        byte[] raw = isEncoded(state, CellUtil.cloneFamily(cell), CellUtil.cloneQualifier(cell))
+                ? decode(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()) : null;
+        return raw == null ? cell : withValue(cell, raw);
+    }
+
+    public List<Cell> decode(TableName table, List<Cell> cells) throws IOException {
+        return decode(state(table), cells);
+    }
+
+    private List<Cell> decode(TableCodecs state, List<Cell> cells) throws IOException {
+        if (cells == null || state == null) return cells;
+        List<Cell> decoded = new ArrayList<>(cells.size());
+        for (Cell cell : cells) {
+            decoded.add(decode(state, cell));
+        }
+        return decoded;
+    }
+
+    public Result decode(TableName table, Result result) throws IOException {
+        if (result == null || result.isEmpty()) return result;
+        TableCodecs state = state(table);
+        if (state == null) return result;
+        //保留partial标记，允许部分结果的scan需要据此判断一行是否还有后续
+        return Result.create(decode(state, result.listCells()), result.getExists(), result.isStale(),
+                result.mayHaveMoreCellsInRow());
+    }
+
+    //编码过的写入累计原始字节数
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    //编码过的写入累计实际写入字节数
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+
+    private static Cell withValue(Cell cell, byte[] value) {
+        return CellBuilderFactory.create(CellBuilderType.SHALLOW_COPY)
+                .setRow(CellUtil.cloneRow(cell))
+                .setFamily(CellUtil.cloneFamily(cell))
+                .setQualifier(CellUtil.cloneQualifier(cell))
+                .setTimestamp(cell.getTimestamp())
+                .setType(cell.getType())
+                .setValue(value)
+                .build();
+    }
+
+    private static String key(byte[] family, byte[] qualifier) {
+        return Bytes.toStringBinary(family) + (qualifier == null ? "" : ":" + Bytes.toStringBinary(qualifier));
+    }
+
+    private static String dictionaryKey(int dictionaryId) {
+        return DICTIONARY_KEY + ":" + Integer.toHexString(dictionaryId);
+    }
+}
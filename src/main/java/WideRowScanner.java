@@ -0,0 +1,96 @@
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.filter.ColumnRangeFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 超宽行的流式读取
+ * 单行用scan读取，setBatch限制每个Result的cell数，setMaxResultSize限制每次RPC的字节数，
+ * 客户端同一时间只持有一个分块，不会因为几十万列把整行一次性装进一个Result。
+ * 用完需要close释放scanner
+ */
+public class WideRowScanner implements Iterator<Cell>, Closeable {
+
+    private final Table table;
+    private final ResultScanner scanner;
+    private final ValueCodecs valueCodecs;
+
+    private Cell[] chunk = null;
+    private int index = 0;
+    private boolean exhausted = false;
+
+    private WideRowScanner(Table table, ResultScanner scanner, ValueCodecs valueCodecs) {
+        this.table = table;
+        this.scanner = scanner;
+        this.valueCodecs = valueCodecs;
+    }
+
+    //family为null读所有列族；minColumn、maxColumn为列名范围（包含），null表示不限；
+    //maxVersions为每列最多读取的版本数；chunkSize为每个分块的cell数；maxChunkBytes为每次RPC的字节上限；
+    //valueCodecs用于解码列值，可以为null
+    public static WideRowScanner open(Connection connection, TableName tableName, byte[] row, byte[] family,
+                                      byte[] minColumn, byte[] maxColumn, int maxVersions,
+                                      int chunkSize, long maxChunkBytes, ValueCodecs valueCodecs)
+            throws IOException {
+        Scan scan = new Scan();
+        scan.withStartRow(row, true);
+        scan.withStopRow(row, true);
+        if (family != null) scan.addFamily(family);
+        if (minColumn != null || maxColumn != null) {
+            scan.setFilter(new ColumnRangeFilter(minColumn, true, maxColumn, true));
+        }
+        scan.readVersions(maxVersions);
+        //每个Result最多chunkSize个cell，每次RPC只取一个分块
+        scan.setBatch(chunkSize);
+        scan.setCaching(1);
+        scan.setMaxResultSize(maxChunkBytes);
+        scan.setAllowPartialResults(true);
+
+        Table table = connection.getTable(tableName);
+        try {
+            return new WideRowScanner(table, table.getScanner(scan), valueCodecs);
+        } catch (IOException e) {
+            table.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!exhausted && (chunk == null || index >= chunk.length)) {
+            try {
+                Result result = scanner.next();
+                if (result == null) {
+                    exhausted = true;
+                    chunk = null;
+                } else {
+                    chunk = (valueCodecs == null ? result : valueCodecs.decode(table.getName(), result)).rawCells();
+                    index = 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return !exhausted;
+    }
+
+    @Override
+    public Cell next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return chunk[index++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+        table.close();
+    }
+}
@@ -0,0 +1,494 @@
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @Author: xu.dm
+ * @Date: 2026/10/19
+ * @Description: 可配置的压测驱动
+ * 按比例混合read/write/scan/checkAndMutate操作，key分布支持uniform、zipfian、latest，
+ * 可按线程数压满或按目标ops/s限速，先预热再测量，输出吞吐和延迟分位数（文本和JSON）。
+ * 限速模式下延迟从计划发起时间开始计算，包含排队等待时间，用于修正coordinated omission；
+ * 不限速时没有计划时间，只能报告服务时间
+ *
+ * 配置项（key=value）：
+ * table、family、records、load、value.size、scan.length、
+ * read.proportion、write.proportion、scan.proportion、cas.proportion、
+ * distribution(uniform|zipfian|latest)、zipfian.constant、threads、target(总ops/s，0为不限速)、
+ * warmup.seconds、measure.seconds
+ */
+public class WorkloadDriver {
+
+    public enum Op {
+        READ, WRITE, SCAN, CAS
+    }
+
+    private final HBaseHelper helper;
+    private final TableName tableName;
+    private final String family;
+    private final long records;
+    private final boolean load;
+    private final int valueSize;
+    private final int scanLength;
+    private final double[] proportions = new double[Op.values().length];
+    private final String distribution;
+    private final double zipfianConstant;
+    //zipfian的zeta(records)计算是O(records)的，只算一次供所有线程共用
+    private final double zetan;
+    private final int threads;
+    private final double target;
+    private final long warmupNanos;
+    private final long measureNanos;
+
+    //latest分布下写入会追加新key，这里记录当前key总数
+    private final AtomicLong keyCount;
+
+    public WorkloadDriver(HBaseHelper helper, Properties props) {
+        this.helper = helper;
+        this.tableName = TableName.valueOf(props.getProperty("table", "workload"));
+        this.family = props.getProperty("family", "cf");
+        this.records = Long.parseLong(props.getProperty("records", "10000"));
+        this.load = Boolean.parseBoolean(props.getProperty("load", "true"));
+        this.valueSize = Integer.parseInt(props.getProperty("value.size", "100"));
+        this.scanLength = Integer.parseInt(props.getProperty("scan.length", "10"));
+        proportions[Op.READ.ordinal()] = Double.parseDouble(props.getProperty("read.proportion", "0.9"));
+        proportions[Op.WRITE.ordinal()] = Double.parseDouble(props.getProperty("write.proportion", "0.1"));
+        proportions[Op.SCAN.ordinal()] = Double.parseDouble(props.getProperty("scan.proportion", "0"));
+        proportions[Op.CAS.ordinal()] = Double.parseDouble(props.getProperty("cas.proportion", "0"));
+        this.distribution = props.getProperty("distribution", "zipfian");
+        this.zipfianConstant = Double.parseDouble(props.getProperty("zipfian.constant", "0.99"));
+        this.threads = Integer.parseInt(props.getProperty("threads", "8"));
+        this.target = Double.parseDouble(props.getProperty("target", "0"));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(props.getProperty("warmup.seconds", "10")));
+        this.measureNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(props.getProperty("measure.seconds", "60")));
+        this.keyCount = new AtomicLong(records);
+        this.zetan = "uniform".equals(distribution) ? 0 : ZipfianGenerator.zeta(records, zipfianConstant);
+
+        double total = 0;
+        for (double p : proportions) {
+            if (p < 0) throw new IllegalArgumentException("operation proportions must not be negative");
+            total += p;
+        }
+        if (total <= 0) throw new IllegalArgumentException("at least one operation proportion must be positive");
+        if (records <= 0) throw new IllegalArgumentException("records must be positive: " + records);
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive: " + threads);
+        if (!Arrays.asList("uniform", "zipfian", "latest").contains(distribution))
+            throw new IllegalArgumentException("unknown distribution: " + distribution);
+    }
+
+    public Report run() throws IOException, InterruptedException {
+        prepare();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long end = measureStart + measureNanos;
+        //每个线程的计划发起间隔，0表示不限速
+        long intervalNanos = target > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * threads / target) : 0;
+
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(new Random(31L * i + System.nanoTime()), start, measureStart, end,
+                    intervalNanos);
+            futures.add(pool.submit(worker, worker));
+        }
+
+        Report report = new Report(threads, target, TimeUnit.NANOSECONDS.toMillis(warmupNanos),
+                TimeUnit.NANOSECONDS.toMillis(measureNanos), distribution);
+        try {
+            for (Future<Worker> future : futures) {
+                report.merge(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("workload worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return report;
+    }
+
+    //建表并预加载records行数据
+    private void prepare() throws IOException {
+        if (!helper.existsTable(tableName)) {
+            helper.createTable(tableName, family);
+        }
+        if (!load) return;
+        try (BufferedMutator mutator = helper.getConnection().getBufferedMutator(tableName)) {
+            Random random = new Random(0);
+            for (long i = 0; i < records; i++) {
+                //绕过helper直接写入，列值编码需要自己处理
+                mutator.mutate(helper.getValueCodecs().encode(tableName, newPut(i, random)));
+            }
+        }
+    }
+
+    //key做哈希打散，避免顺序key全部落在同一个region
+    static String key(long index) {
+        return String.format("user%016x", index * 0x9E3779B97F4A7C15L);
+    }
+
+    private Put newPut(long index, Random random) {
+        Put put = new Put(Bytes.toBytes(key(index)));
+        put.addColumn(Bytes.toBytes(family), Bytes.toBytes("field0"), randomValue(random));
+        return put;
+    }
+
+    private byte[] randomValue(Random random) {
+        byte[] value = new byte[valueSize];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return value;
+    }
+
+    private Op chooseOp(Random random) {
+        double total = 0;
+        for (double p : proportions) total += p;
+        double r = random.nextDouble() * total;
+        for (Op op : Op.values()) {
+            r -= proportions[op.ordinal()];
+            if (r < 0) return op;
+        }
+        return Op.READ;
+    }
+
+    private class Worker implements Runnable {
+
+        private final Random random;
+        private final long start;
+        private final long measureStart;
+        private final long end;
+        private final long intervalNanos;
+        private final KeyChooser keyChooser;
+
+        final LatencyHistogram[] latency = new LatencyHistogram[Op.values().length];
+        final LatencyHistogram[] serviceTime = new LatencyHistogram[Op.values().length];
+        final long[] errors = new long[Op.values().length];
+
+        Worker(Random random, long start, long measureStart, long end, long intervalNanos) {
+            this.random = random;
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.intervalNanos = intervalNanos;
+            this.keyChooser = newKeyChooser(random);
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new LatencyHistogram();
+                serviceTime[i] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            long n = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                long intended = System.nanoTime();
+                if (intervalNanos > 0) {
+                    //按计划时间发起，落后时不等待，排队时间计入延迟
+                    intended = start + n++ * intervalNanos;
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+                if (intended >= end) break;
+
+                Op op = chooseOp(random);
+                long begin = System.nanoTime();
+                boolean ok = execute(op);
+                long finish = System.nanoTime();
+
+                if (intended < measureStart) continue;
+                if (!ok) errors[op.ordinal()]++;
+                latency[op.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(finish - intended));
+                serviceTime[op.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(finish - begin));
+            }
+        }
+
+        private boolean execute(Op op) {
+            try {
+                switch (op) {
+                    case READ:
+                        helper.getRowByKey(tableName.getNameAsString(), key(keyChooser.next()));
+                        break;
+                    case WRITE:
+                        long index = "latest".equals(distribution) ? keyCount.getAndIncrement() : keyChooser.next();
+                        helper.bulkInsert2(tableName.getNameAsString(),
+                                Collections.singletonList(newPut(index, random)));
+                        break;
+                    case SCAN:
+                        scan(key(keyChooser.next()));
+                        break;
+                    case CAS:
+                        checkAndMutate(key(keyChooser.next()));
+                        break;
+                }
+                return true;
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        private void scan(String startRow) throws IOException {
+            Scan scan = new Scan();
+            scan.withStartRow(Bytes.toBytes(startRow));
+            scan.setLimit(scanLength);
+            scan.setCaching(scanLength);
+            try (Table table = helper.getConnection().getTable(tableName);
+                 ResultScanner scanner = table.getScanner(scan)) {
+                for (Result ignored : scanner) {
+                    //只消费结果
+                }
+            }
+        }
+
+        //读出当前值，只有值未被其他线程修改时才写入新值
+        private void checkAndMutate(String rowKey) throws IOException {
+            byte[] row = Bytes.toBytes(rowKey);
+            byte[] fam = Bytes.toBytes(family);
+            byte[] qual = Bytes.toBytes("field0");
+            try (Table table = helper.getConnection().getTable(tableName)) {
+                Cell current = table.get(new Get(row).addColumn(fam, qual)).getColumnLatestCell(fam, qual);
+                Put put = new Put(row).addColumn(fam, qual, randomValue(random));
+                Table.CheckAndMutateBuilder builder = table.checkAndMutate(row, fam).qualifier(qual);
+                if (current == null) builder.ifNotExists().thenPut(put);
+                else builder.ifEquals(CellUtil.cloneValue(current)).thenPut(put);
+            }
+        }
+    }
+
+    private KeyChooser newKeyChooser(Random random) {
+        switch (distribution) {
+            case "uniform":
+                return () -> (long) (random.nextDouble() * keyCount.get());
+            case "zipfian":
+                ZipfianGenerator zipfian = new ZipfianGenerator(records, zipfianConstant, zetan, random);
+                //热点key打散到整个key空间，而不是集中在开头
+                return () -> Math.floorMod(zipfian.next() * 0x9E3779B97F4A7C15L, records);
+            default:
+                //越新写入的key越热
+                ZipfianGenerator recency = new ZipfianGenerator(records, zipfianConstant, zetan, random);
+                return () -> {
+                    long max = keyCount.get();
+                    return Math.max(0, max - 1 - Math.min(recency.next(), max - 1));
+                };
+        }
+    }
+
+    private interface KeyChooser {
+        long next();
+    }
+
+    //Gray等人的zipfian生成算法（YCSB同款），0号元素最热
+    static class ZipfianGenerator {
+        private final long items;
+        private final double theta;
+        private final double zetan;
+        private final double alpha;
+        private final double eta;
+        private final Random random;
+
+        ZipfianGenerator(long items, double theta, double zetan, Random random) {
+            this.items = items;
+            this.theta = theta;
+            this.random = random;
+            this.zetan = zetan;
+            double zeta2 = zeta(2, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        long next() {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) return 0;
+            if (uz < 1.0 + Math.pow(0.5, theta)) return 1;
+            return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+
+    //对数分桶的延迟直方图（微秒），相对误差约1.6%，每个线程一份，最后合并
+    static class LatencyHistogram {
+        private static final int SUB_BUCKETS = 64;
+        private final long[] counts = new long[2 * SUB_BUCKETS + 64 * SUB_BUCKETS];
+        private long total = 0;
+        private long max = 0;
+        private double sum = 0;
+
+        void record(long micros) {
+            if (micros < 0) micros = 0;
+            counts[index(micros)]++;
+            total++;
+            sum += micros;
+            if (micros > max) max = micros;
+        }
+
+        void merge(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            sum += other.sum;
+            if (other.max > max) max = other.max;
+        }
+
+        private static int index(long v) {
+            if (v < 2 * SUB_BUCKETS) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - 6;
+            return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((v >>> shift) - SUB_BUCKETS);
+        }
+
+        //桶的上界
+        private static long value(int index) {
+            if (index < 2 * SUB_BUCKETS) return index;
+            int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+            long sub = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+
+        long percentile(double p) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(p / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(value(i), max);
+            }
+            return max;
+        }
+
+        long getCount() {
+            return total;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        double getMean() {
+            return total == 0 ? 0 : sum / total;
+        }
+    }
+
+    //压测报告，按操作类型汇总吞吐、错误数和延迟分位数
+    public static class Report {
+        private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+        private final int threads;
+        private final double target;
+        private final long warmupMillis;
+        private final long measureMillis;
+        private final String distribution;
+        private final LatencyHistogram[] latency = new LatencyHistogram[Op.values().length];
+        private final LatencyHistogram[] serviceTime = new LatencyHistogram[Op.values().length];
+        private final long[] errors = new long[Op.values().length];
+
+        Report(int threads, double target, long warmupMillis, long measureMillis, String distribution) {
+            this.threads = threads;
+            this.target = target;
+            this.warmupMillis = warmupMillis;
+            this.measureMillis = measureMillis;
+            this.distribution = distribution;
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new LatencyHistogram();
+                serviceTime[i] = new LatencyHistogram();
+            }
+        }
+
+        void merge(Worker worker) {
+            for (int i = 0; i < latency.length; i++) {
+                latency[i].merge(worker.latency[i]);
+                serviceTime[i].merge(worker.serviceTime[i]);
+                errors[i] += worker.errors[i];
+            }
+        }
+
+        public double getThroughput() {
+            long ops = 0;
+            for (LatencyHistogram h : latency) ops += h.getCount();
+            return measureMillis == 0 ? 0 : ops * 1000.0 / measureMillis;
+        }
+
+        //限速时latency已做coordinated omission修正，不限速时与服务时间相同
+        public boolean isCorrected() {
+            return target > 0;
+        }
+
+        public String toText() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("threads=%d target=%s distribution=%s warmup=%dms measure=%dms%n",
+                    threads, target > 0 ? String.format("%.0f ops/s", target) : "unthrottled",
+                    distribution, warmupMillis, measureMillis));
+            sb.append(String.format("throughput: %.1f ops/s%n", getThroughput()));
+            sb.append(String.format("latency(us)%s%n", isCorrected() ? " corrected for coordinated omission" :
+                    " = service time (unthrottled, no correction)"));
+            sb.append(String.format("%-6s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                    "op", "count", "errors", "mean", "p50", "p90", "p99", "p99.9", "max"));
+            for (Op op : Op.values()) {
+                LatencyHistogram h = latency[op.ordinal()];
+                if (h.getCount() == 0) continue;
+                sb.append(String.format("%-6s %10d %8d %10.1f", op, h.getCount(), errors[op.ordinal()], h.getMean()));
+                for (double p : PERCENTILES) sb.append(String.format(" %10d", h.percentile(p)));
+                sb.append(String.format(" %10d%n", h.getMax()));
+                if (isCorrected()) {
+                    LatencyHistogram s = serviceTime[op.ordinal()];
+                    sb.append(String.format("%-6s %10s %8s %10.1f", "  svc", "", "", s.getMean()));
+                    for (double p : PERCENTILES) sb.append(String.format(" %10d", s.percentile(p)));
+                    sb.append(String.format(" %10d%n", s.getMax()));
+                }
+            }
+            return sb.toString();
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("{");
+            sb.append("\"threads\":").append(threads);
+            sb.append(",\"target\":").append(target);
+            sb.append(",\"distribution\":\"").append(distribution).append('"');
+            sb.append(",\"warmupMillis\":").append(warmupMillis);
+            sb.append(",\"measureMillis\":").append(measureMillis);
+            sb.append(",\"throughput\":").append(String.format(Locale.ROOT, "%.1f", getThroughput()));
+            sb.append(",\"corrected\":").append(isCorrected());
+            sb.append(",\"ops\":{");
+            boolean first = true;
+            for (Op op : Op.values()) {
+                if (latency[op.ordinal()].getCount() == 0) continue;
+                if (!first) sb.append(',');
+                first = false;
+                sb.append('"').append(op.name().toLowerCase()).append("\":{");
+                sb.append("\"errors\":").append(errors[op.ordinal()]);
+                sb.append(",\"latencyMicros\":");
+                appendJson(sb, latency[op.ordinal()]);
+                sb.append(",\"serviceTimeMicros\":");
+                appendJson(sb, serviceTime[op.ordinal()]);
+                sb.append('}');
+            }
+            sb.append("}}");
+            return sb.toString();
+        }
+
+        private static void appendJson(StringBuilder sb, LatencyHistogram h) {
+            sb.append("{\"count\":").append(h.getCount());
+            sb.append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", h.getMean()));
+            for (double p : PERCENTILES) {
+                sb.append(",\"p").append(p == Math.floor(p) ? String.valueOf((long) p) : String.valueOf(p))
+                        .append("\":").append(h.percentile(p));
+            }
+            sb.append(",\"max\":").append(h.getMax()).append('}');
+        }
+    }
+}